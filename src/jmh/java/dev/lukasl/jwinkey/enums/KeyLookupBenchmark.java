@@ -0,0 +1,73 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.enums;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookup of {@link VirtualKey}s by code and the combination of {@link Modifier}s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyLookupBenchmark {
+  private final Collection<Modifier> modifiers = Arrays.asList(Modifier.CONTROL, Modifier.SHIFT, Modifier.NO_REPEAT);
+
+  @Param({"0x01", "0x41", "0xFE"})
+  private String code;
+
+  private int virtualKeyCode;
+
+  @Setup
+  public void setup() {
+    this.virtualKeyCode = Integer.decode(this.code);
+  }
+
+  @Benchmark
+  public Optional<VirtualKey> fromCode() {
+    return VirtualKey.fromCode(this.virtualKeyCode);
+  }
+
+  @Benchmark
+  public VirtualKey lookup() {
+    return VirtualKey.lookup(this.virtualKeyCode);
+  }
+
+  @Benchmark
+  public Set<VirtualKey> fromCodes() {
+    return VirtualKey.fromCodes(this.virtualKeyCode, 0x10, 0x11);
+  }
+
+  @Benchmark
+  public int combineCollection() {
+    return Modifier.combine(this.modifiers);
+  }
+
+  @Benchmark
+  public int combineVarargs() {
+    return Modifier.combine(Modifier.CONTROL, Modifier.SHIFT, Modifier.NO_REPEAT);
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.journal;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures recording into and replaying from a {@link KeyEventJournal}. Every operation handles {@value #EVENTS}
+ * events, so the throughput in events per second is the reported one multiplied by {@value #EVENTS}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyEventJournalBenchmark {
+  private static final int EVENTS = 1_000_000;
+
+  private Path directory;
+  private KeyEventJournal journal;
+
+  @Setup
+  public void setup() throws IOException {
+    this.directory = Files.createTempDirectory("jwinkey-journal");
+    try (KeyEventRecorder recorder = KeyEventRecorder.open(this.directory)) {
+      record(recorder);
+    }
+    this.journal = KeyEventJournal.open(this.directory);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    delete(this.directory);
+  }
+
+  @Benchmark
+  public long replay(Blackhole blackhole) {
+    return this.journal.replay((virtualKeyCode, keyState, nanoTime) -> blackhole.consume(virtualKeyCode));
+  }
+
+  @Benchmark
+  public long record() throws IOException {
+    Path directory = Files.createTempDirectory("jwinkey-journal");
+    try (KeyEventRecorder recorder = KeyEventRecorder.open(directory)) {
+      record(recorder);
+      return recorder.getCount();
+    } finally {
+      delete(directory);
+    }
+  }
+
+  private static void record(KeyEventRecorder recorder) {
+    long nanoTime = 0;
+    for (int i = 0; i < EVENTS; i++) {
+      nanoTime += 10_000 + (i & 0xFFF);
+      recorder.append(0x41 + (i >>> 1) % 26, (i & 1) == 0 ? KeyState.PRESSED : KeyState.RELEASED, nanoTime);
+    }
+  }
+
+  private static void delete(Path directory) throws IOException {
+    for (Path segment : KeyEventJournal.segments(directory)) {
+      Files.delete(segment);
+    }
+    Files.delete(directory);
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.PollingPolicy;
+import dev.lukasl.jwinkey.sources.ScriptedKeyStateSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a scan which detects a transition of every registered key, including its delivery to all
+ * subscribers. Every scan alternates between all keys pressed and all keys released.
+ * <p>Filtering and routed subscribers are interested in a single key each, either filtering the events of all keys or
+ * subscribing to the view of their key. Batched subscribers receive all events of a scan at once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+  @Param({"1", "16"})
+  private int registeredKeys;
+
+  @Param({"1", "4", "16"})
+  private int subscribers;
+
+  @Param({"OBSERVER", "HANDLER", "FILTERING", "ROUTED", "BATCHED"})
+  private SubscriberType subscriberType;
+
+  private KeyStatePoller poller;
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    int[] virtualKeyCodes = new int[this.registeredKeys];
+    for (int i = 0; i < virtualKeyCodes.length; i++) {
+      virtualKeyCodes[i] = 0x41 + i;
+    }
+
+    this.poller = KeyStatePoller.builder()
+      .source(ScriptedKeyStateSource.looping().frame(virtualKeyCodes).frame())
+      .policy(PollingPolicy.fixed(0, TimeUnit.MILLISECONDS))
+      .manual(true)
+      .build();
+    KeyStateObservable observable = KeyStateObservable.builder().poller(this.poller).build().register(virtualKeyCodes);
+
+    for (int i = 0; i < this.subscribers; i++) {
+      int key = virtualKeyCodes[i % virtualKeyCodes.length];
+      switch (this.subscriberType) {
+        case OBSERVER:
+          observable.subscribe(blackhole::consume);
+          break;
+        case HANDLER:
+          observable.handle((virtualKeyCode, keyState, nanoTime) -> blackhole.consume(virtualKeyCode));
+          break;
+        case FILTERING:
+          observable.filter((update) -> update.getVirtualKeyCode() == key).subscribe(blackhole::consume);
+          break;
+        case ROUTED:
+          observable.forKey(key).subscribe(blackhole::consume);
+          break;
+        case BATCHED:
+          observable.batched().subscribe(blackhole::consume);
+          break;
+      }
+    }
+  }
+
+  @Benchmark
+  public boolean scan() {
+    return this.poller.scan();
+  }
+
+  public enum SubscriberType {
+    OBSERVER,
+    HANDLER,
+    FILTERING,
+    ROUTED,
+    BATCHED
+  }
+}
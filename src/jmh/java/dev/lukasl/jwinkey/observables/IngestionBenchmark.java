@@ -0,0 +1,139 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.PollingPolicy;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.sources.KeyStateSource;
+import io.reactivex.rxjava3.disposables.Disposable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the push-based {@link KeyEventDispatcher} with a polling {@link KeyStatePoller}, both driven by the
+ * benchmark thread acting as a synthetic producer.
+ * <p>{@code latency} toggles a key and waits until a subscriber has received the transition. {@code burst} produces
+ * rounds of transitions of all keys and waits until all of them have been received, so it measures events per second.
+ * The push engine receives the whole burst at once, while a poller has to see every round in a separate scan.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IngestionBenchmark {
+  private static final int BURST = 1024;
+  private static final int KEYS = 64;
+
+  @Param({"PUSH", "POLL"})
+  private Engine engine;
+
+  private final AtomicLong received = new AtomicLong();
+  private KeyEventDispatcher dispatcher;
+  private KeyStatePoller poller;
+  private ToggledKeyStateSource source;
+  private Disposable subscription;
+  private boolean pressed;
+  private long expected;
+
+  @Setup
+  public void setup() {
+    int[] virtualKeyCodes = new int[KEYS];
+    for (int i = 0; i < virtualKeyCodes.length; i++) {
+      virtualKeyCodes[i] = 0x40 + i;
+    }
+
+    KeyStateObservable observable;
+    if (this.engine == Engine.PUSH) {
+      this.dispatcher = KeyEventDispatcher.builder().capacity(BURST * 2).build();
+      observable = this.dispatcher.observable(virtualKeyCodes);
+    } else {
+      this.source = new ToggledKeyStateSource();
+      this.poller = KeyStatePoller.builder()
+        .source(this.source)
+        .policy(PollingPolicy.fixed(1, TimeUnit.MILLISECONDS))
+        .build();
+      observable = KeyStateObservable.builder().poller(this.poller).build().register(virtualKeyCodes);
+    }
+    this.subscription = observable.handle((virtualKeyCode, keyState, nanoTime) -> this.received.incrementAndGet());
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.subscription.dispose();
+    if (this.dispatcher != null) {
+      this.dispatcher.close();
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public long latency() {
+    this.pressed = !this.pressed;
+    if (this.engine == Engine.PUSH) {
+      this.dispatcher.offer(0x40, this.pressed);
+    } else {
+      this.source.state ^= 1;
+    }
+    return this.await(++this.expected);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @OperationsPerInvocation(BURST)
+  public long burst() {
+    if (this.engine == Engine.POLL) {
+      for (int round = 0; round < BURST / KEYS; round++) {
+        this.source.state = ~this.source.state;
+        this.await(this.expected += KEYS);
+      }
+      return this.expected;
+    }
+
+    for (int i = 0; i < BURST; i++) {
+      this.dispatcher.offer(0x40 + i % KEYS, (i / KEYS & 1) == 0 ? KeyState.PRESSED : KeyState.RELEASED, 0);
+    }
+    return this.await(this.expected += BURST);
+  }
+
+  private long await(long expected) {
+    long received;
+    while ((received = this.received.get()) < expected) {
+      Thread.yield();
+    }
+    return received;
+  }
+
+  public enum Engine {
+    PUSH,
+    POLL
+  }
+
+  private static class ToggledKeyStateSource implements KeyStateSource {
+    private volatile long state;
+
+    @Override
+    public KeyState getKeyState(int virtualKeyCode) {
+      return virtualKeyCode >>> 6 == 1 && (this.state >>> (virtualKeyCode & 0x3F) & 1) != 0
+        ? KeyState.PRESSED
+        : KeyState.RELEASED;
+    }
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.KeySet;
+import dev.lukasl.jwinkey.sources.ScriptedKeyStateSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the pressed state queries of a {@link KeyStateObservable} with 64 registered and 8 pressed keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyStateQueryBenchmark {
+  private static final int[] CHORD = {0x10, 0x11, 0x41};
+
+  private final KeySet chordKeySet = KeySet.of(CHORD);
+  private final Collection<Integer> chordCollection = Arrays.asList(0x10, 0x11, 0x41);
+  private KeyStateObservable observable;
+
+  @Setup
+  public void setup() {
+    ScriptedKeyStateSource source = ScriptedKeyStateSource.create()
+      .press(0x10, 0x11, 0x41, 0x42, 0x43, 0x44, 0x45, 0x46);
+    KeyStatePoller poller = KeyStatePoller.builder().source(source).manual(true).build();
+
+    this.observable = KeyStateObservable.builder().poller(poller).build();
+    for (int virtualKeyCode = 0x10; virtualKeyCode < 0x50; virtualKeyCode++) {
+      this.observable.register(virtualKeyCode);
+    }
+    this.observable.subscribe();
+    poller.scan();
+  }
+
+  @Benchmark
+  public boolean isPressedVarargs() {
+    return this.observable.isPressed(CHORD);
+  }
+
+  @Benchmark
+  public boolean isPressedKeySet() {
+    return this.observable.isPressed(this.chordKeySet);
+  }
+
+  @Benchmark
+  public boolean isPressedCollection() {
+    return this.observable.isPressed(this.chordCollection);
+  }
+
+  @Benchmark
+  public Set<Integer> getPressed() {
+    return this.observable.getPressed();
+  }
+
+  @Benchmark
+  public KeySet getPressedKeys() {
+    return this.observable.getPressedKeys();
+  }
+
+  @Benchmark
+  public Set<Integer> getReleased() {
+    return this.observable.getReleased();
+  }
+
+  @Benchmark
+  public boolean snapshotIsPressed() {
+    return this.observable.getSnapshot().isPressed(this.chordKeySet);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.enums.PollingMode;
+import dev.lukasl.jwinkey.sources.KeyStateSource;
+import dev.lukasl.jwinkey.sources.SyntheticKeyStateSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of a single scan in {@link PollingMode#PER_KEY} and {@link PollingMode#SNAPSHOT} mode by the
+ * number of registered keys. Native calls are simulated by a source which burns {@code nativeCallTokens} of CPU per
+ * call. Scans without transitions are expected to allocate nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PollingModeBenchmark {
+  @Param({"1", "16", "64", "128", "256"})
+  private int registeredKeys;
+
+  @Param({"PER_KEY", "SNAPSHOT"})
+  private PollingMode pollingMode;
+
+  @Param({"200"})
+  private int nativeCallTokens;
+
+  @Param({"0", "1"})
+  private int transitionsPerTick;
+
+  private KeyStatePoller poller;
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    List<Integer> virtualKeyCodes = new ArrayList<>();
+    int[] codes = new int[this.registeredKeys];
+    for (int i = 0; i < this.registeredKeys; i++) {
+      virtualKeyCodes.add(i);
+      codes[i] = i;
+    }
+
+    this.poller = KeyStatePoller.builder()
+      .source(new NativeCostKeyStateSource(
+        SyntheticKeyStateSource.of(this.transitionsPerTick, 42, codes), this.nativeCallTokens
+      ))
+      .pollingMode(this.pollingMode)
+      .manual(true)
+      .build();
+    KeyStateObservable.builder()
+      .poller(this.poller)
+      .virtualKeyCodes(virtualKeyCodes)
+      .build()
+      .handle((virtualKeyCode, keyState, nanoTime) -> blackhole.consume(virtualKeyCode));
+  }
+
+  @Benchmark
+  public void scan() {
+    this.poller.scan();
+  }
+
+  /**
+   * Delegates to another source and simulates the cost of a native call for every key state query.
+   */
+  private static final class NativeCostKeyStateSource implements KeyStateSource {
+    private final KeyStateSource delegate;
+    private final int tokens;
+
+    private NativeCostKeyStateSource(KeyStateSource delegate, int tokens) {
+      this.delegate = delegate;
+      this.tokens = tokens;
+    }
+
+    @Override
+    public KeyState getKeyState(int virtualKeyCode) {
+      Blackhole.consumeCPU(this.tokens);
+      return this.delegate.getKeyState(virtualKeyCode);
+    }
+
+    @Override
+    public void getKeyboardState(byte[] keyboardState) {
+      Blackhole.consumeCPU(this.tokens);
+      this.delegate.getKeyboardState(keyboardState);
+    }
+
+    @Override
+    public void tick() {
+      this.delegate.tick();
+    }
+  }
+}
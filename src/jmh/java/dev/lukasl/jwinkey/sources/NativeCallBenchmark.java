@@ -0,0 +1,65 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.sources;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.Platform;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-call overhead of JNA interface mapping, as used by {@code User32.INSTANCE}, compared to the direct
+ * mapping used by {@link KeyboardLibrary}. Both call {@code abs} of the C library, which takes and returns an integer
+ * like {@code GetAsyncKeyState} and runs on every platform.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NativeCallBenchmark {
+  private final ProxyLibrary proxy = Native.load(Platform.C_LIBRARY_NAME, ProxyLibrary.class);
+  private int value = -0x41;
+
+  @Benchmark
+  public int proxy() {
+    return this.proxy.abs(this.value);
+  }
+
+  @Benchmark
+  public int direct() {
+    return DirectLibrary.abs(this.value);
+  }
+
+  public interface ProxyLibrary extends Library {
+    int abs(int value);
+  }
+
+  public static final class DirectLibrary {
+    static {
+      Native.register(Platform.C_LIBRARY_NAME);
+    }
+
+    private DirectLibrary() {
+    }
+
+    static native int abs(int value);
+  }
+}
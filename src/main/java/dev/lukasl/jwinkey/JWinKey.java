@@ -22,6 +22,6 @@ import dev.lukasl.jwinkey.observables.KeyStateObservable;
 public class JWinKey {
   public static void main(String[] args) {
     KeyStateObservable observable = KeyStateObservable.of(VirtualKey.VK_SNAPSHOT.getVirtualKeyCode());
-    observable.subscribe(System.out::println);
+    observable.blockingSubscribe(System.out::println);
   }
 }
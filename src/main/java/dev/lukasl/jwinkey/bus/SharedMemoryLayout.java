@@ -0,0 +1,122 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.bus;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+
+/**
+ * The layout of the file shared by a {@link SharedMemoryPublisher} and its {@link SharedMemoryReader}s.
+ * <p>The header holds the magic number, the format version and the capacity, followed by the sequence of the next
+ * event on a cache line of its own. It is followed by one slot of {@value #SLOT_SIZE} bytes per event, holding the
+ * stamp of the slot, the time and press duration of the event and its virtual key code and state.
+ * <p>Slots are written like a seqlock: the publisher invalidates the stamp, writes the event and then stamps it with
+ * its sequence plus one. Readers accept an event only if they observe the expected stamp both before and after
+ * reading it. Plain accesses to a mapped buffer may be reordered, so the publisher separates its writes by store
+ * fences and readers separate their reads by load fences, both issued through {@code sun.misc.Unsafe}.
+ */
+final class SharedMemoryLayout {
+  static final int MAGIC = 0x4A574B42;
+  static final int VERSION = 1;
+  static final int CAPACITY_OFFSET = 8;
+  static final int HEAD_OFFSET = 64;
+  static final int HEADER_SIZE = 128;
+  static final int SLOT_SIZE = 32;
+  static final int NANO_TIME_OFFSET = 8;
+  static final int PRESS_DURATION_OFFSET = 16;
+  static final int EVENT_OFFSET = 24;
+  static final long WRITING = -1;
+
+  private static final MethodHandle STORE_FENCE = fence("storeFence");
+  private static final MethodHandle LOAD_FENCE = fence("loadFence");
+
+  private SharedMemoryLayout() {
+  }
+
+  /**
+   * Looks up a fence of {@code sun.misc.Unsafe}, which is resolved reflectively as it is not part of the public API.
+   *
+   * @param name the name of the fence method
+   * @return the method handle bound to the unsafe instance
+   */
+  private static MethodHandle fence(String name) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      return MethodHandles.lookup()
+        .findVirtual(unsafeClass, name, MethodType.methodType(void.class))
+        .bindTo(field.get(null));
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  /**
+   * Ensures that no store before the fence is reordered with a load or store after it.
+   */
+  static void storeFence() {
+    try {
+      STORE_FENCE.invokeExact();
+    } catch (Throwable throwable) {
+      throw new IllegalStateException(throwable);
+    }
+  }
+
+  /**
+   * Ensures that no load before the fence is reordered with a load or store after it.
+   */
+  static void loadFence() {
+    try {
+      LOAD_FENCE.invokeExact();
+    } catch (Throwable throwable) {
+      throw new IllegalStateException(throwable);
+    }
+  }
+
+  static long size(int capacity) {
+    return HEADER_SIZE + (long) capacity * SLOT_SIZE;
+  }
+
+  static int slotOffset(long index) {
+    return HEADER_SIZE + (int) index * SLOT_SIZE;
+  }
+
+  static long stamp(long sequence) {
+    return sequence + 1;
+  }
+
+  static boolean isValid(ByteBuffer buffer) {
+    return buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION;
+  }
+
+  static int capacity(ByteBuffer buffer) {
+    return buffer.getInt(CAPACITY_OFFSET);
+  }
+
+  static void initialize(ByteBuffer buffer, int capacity) {
+    for (int offset = 0; offset < size(capacity); offset += Long.BYTES) {
+      buffer.putLong(offset, 0);
+    }
+    buffer.putInt(4, VERSION);
+    buffer.putInt(CAPACITY_OFFSET, capacity);
+    buffer.putInt(0, MAGIC);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.bus;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link KeyEventHandler} which publishes every event into a ring buffer in a memory-mapped file, from where any
+ * number of {@link SharedMemoryReader}s in other processes read it. Subscribe it to the observable of the one process
+ * polling the keyboard, so all other processes share its poller.
+ * <p>There must be at most one publisher per file. The publisher never waits for readers; readers which fall behind
+ * by more than the capacity lose the overwritten events.
+ */
+public class SharedMemoryPublisher implements KeyEventHandler, Closeable {
+  public static final int DEFAULT_CAPACITY = 4096;
+
+  private final MappedByteBuffer buffer;
+  private final int mask;
+  private long sequence;
+
+  @Getter
+  private final Path file;
+
+  @Getter
+  private final int capacity;
+
+  protected SharedMemoryPublisher(Path file, MappedByteBuffer buffer, int capacity) {
+    this.file = file;
+    this.buffer = buffer;
+    this.capacity = capacity;
+    this.mask = capacity - 1;
+    this.sequence = buffer.getLong(SharedMemoryLayout.HEAD_OFFSET);
+  }
+
+  @Override
+  public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+    this.onEvent(virtualKeyCode, keyState, nanoTime, 0);
+  }
+
+  @Override
+  public synchronized void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+    long sequence = this.sequence;
+    int slot = SharedMemoryLayout.slotOffset(sequence & this.mask);
+
+    this.buffer.putLong(slot, SharedMemoryLayout.WRITING);
+    SharedMemoryLayout.storeFence();
+    this.buffer.putLong(slot + SharedMemoryLayout.NANO_TIME_OFFSET, nanoTime);
+    this.buffer.putLong(slot + SharedMemoryLayout.PRESS_DURATION_OFFSET, pressDurationNanos);
+    this.buffer.putInt(slot + SharedMemoryLayout.EVENT_OFFSET, (virtualKeyCode & 0xFF) | keyState.ordinal() << 8);
+    SharedMemoryLayout.storeFence();
+    this.buffer.putLong(slot, SharedMemoryLayout.stamp(sequence));
+    SharedMemoryLayout.storeFence();
+    this.buffer.putLong(SharedMemoryLayout.HEAD_OFFSET, sequence + 1);
+    this.sequence = sequence + 1;
+  }
+
+  /**
+   * Returns the number of events published to the file, including those of previous publishers.
+   *
+   * @return the sequence of the next event
+   */
+  public synchronized long getSequence() {
+    return this.sequence;
+  }
+
+  @Override
+  public void close() {
+    this.buffer.force();
+  }
+
+  /**
+   * Opens a publisher writing into the passed file. An existing file of the same capacity is continued, so readers
+   * survive a restart of the publishing process; any other file is overwritten.
+   *
+   * @param file     the file to be written
+   * @param capacity the number of events the ring buffer holds, rounded up to the next power of two
+   * @return the publisher
+   * @throws IOException if the file could not be mapped
+   */
+  public static SharedMemoryPublisher open(@NonNull Path file, int capacity) throws IOException {
+    if (capacity <= 0 || capacity > 1 << 24) {
+      throw new IllegalArgumentException("capacity must be between 1 and 2^24");
+    }
+    capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(
+      file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+    )) {
+      boolean compatible = channel.size() == SharedMemoryLayout.size(capacity);
+      buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, SharedMemoryLayout.size(capacity));
+      if (!compatible || !SharedMemoryLayout.isValid(buffer) || SharedMemoryLayout.capacity(buffer) != capacity) {
+        SharedMemoryLayout.initialize(buffer, capacity);
+      }
+    }
+    return new SharedMemoryPublisher(file, buffer, capacity);
+  }
+
+  public static SharedMemoryPublisher open(@NonNull Path file) throws IOException {
+    return open(file, DEFAULT_CAPACITY);
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.bus;
+
+import dev.lukasl.jwinkey.components.KeyStateUpdate;
+import dev.lukasl.jwinkey.components.PollingPolicy;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import dev.lukasl.jwinkey.observables.KeyStatePoller;
+import io.reactivex.rxjava3.core.Emitter;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.exceptions.Exceptions;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reads the events published by a {@link SharedMemoryPublisher}, possibly in another process. Every {@link Cursor}
+ * and every subscription of {@link #observe()} reads independently, without locks and without writing to the file.
+ * <p>Events carry the {@link System#nanoTime()} of the publishing process, which is comparable across processes on
+ * the same machine as long as the JVMs use the monotonic clock of the operating system.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class SharedMemoryReader {
+  private static final KeyState[] KEY_STATES = KeyState.values();
+
+  @Getter
+  private final Path file;
+
+  private final MappedByteBuffer buffer;
+
+  @Getter
+  private final int capacity;
+
+  /**
+   * Opens a cursor positioned after the latest published event.
+   *
+   * @return the cursor
+   */
+  public Cursor cursor() {
+    return new Cursor(this.head());
+  }
+
+  /**
+   * Returns an observable which reads the events published after subscribing, polling the file at 1 millisecond on
+   * a daemon thread per subscription.
+   *
+   * @return the observable
+   */
+  public Observable<KeyStateUpdate> observe() {
+    return this.observe(PollingPolicy.fixed(1, TimeUnit.MILLISECONDS), KeyStatePoller.daemonThreads());
+  }
+
+  /**
+   * Returns an observable which reads the events published after subscribing, polling the file on a thread of the
+   * passed factory per subscription. If reading fails, e.g. as the file has been corrupted, the thread stops and the
+   * subscriber receives the error.
+   *
+   * @param policy        the policy defining the period between two polls
+   * @param threadFactory the factory creating the reading threads
+   * @return the observable
+   */
+  public Observable<KeyStateUpdate> observe(@NonNull PollingPolicy policy, @NonNull ThreadFactory threadFactory) {
+    return Observable.create((emitter) -> {
+      Cursor cursor = this.cursor();
+      KeyEventHandler handler = new EmitterKeyEventHandler(emitter);
+      Thread thread = threadFactory.newThread(() -> {
+        try {
+          long lastActivity = System.nanoTime();
+          while (!Thread.currentThread().isInterrupted()) {
+            long now = System.nanoTime();
+            if (cursor.poll(handler) > 0) {
+              lastActivity = now;
+            }
+            LockSupport.parkNanos(this, policy.getPeriodNanos(now - lastActivity));
+          }
+        } catch (Throwable throwable) {
+          Exceptions.throwIfFatal(throwable);
+          emitter.tryOnError(throwable);
+        }
+      });
+      emitter.setCancellable(thread::interrupt);
+      thread.start();
+    });
+  }
+
+  private long head() {
+    long head = this.buffer.getLong(SharedMemoryLayout.HEAD_OFFSET);
+    SharedMemoryLayout.loadFence();
+    return head;
+  }
+
+  /**
+   * Opens a reader of the passed file.
+   *
+   * @param file the file written by a {@link SharedMemoryPublisher}
+   * @return the reader
+   * @throws IOException if the file could not be mapped or has not been written by a publisher
+   */
+  public static SharedMemoryReader open(@NonNull Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.capacity() < SharedMemoryLayout.HEADER_SIZE || !SharedMemoryLayout.isValid(buffer)) {
+        throw new IOException(file + " has not been written by a shared memory publisher");
+      }
+
+      int capacity = SharedMemoryLayout.capacity(buffer);
+      if (buffer.capacity() != SharedMemoryLayout.size(capacity)) {
+        throw new IOException(file + " has an unexpected size");
+      }
+      return new SharedMemoryReader(file, buffer, capacity);
+    }
+  }
+
+  /**
+   * A position in the ring buffer of a reader. Cursors must not be used by multiple threads at once.
+   */
+  public final class Cursor {
+    private long next;
+
+    /**
+     * The number of events which have been overwritten before this cursor could read them.
+     */
+    @Getter
+    private long lost;
+
+    private Cursor(long next) {
+      this.next = next;
+    }
+
+    /**
+     * Passes all events published since the previous call to the passed handler.
+     *
+     * @param handler the handler receiving the events
+     * @return the number of events passed to the handler
+     */
+    public int poll(@NonNull KeyEventHandler handler) {
+      SharedMemoryReader reader = SharedMemoryReader.this;
+      int count = 0;
+      long head = reader.head();
+      if (head < this.next) {
+        this.next = head;
+      }
+
+      while (this.next < head) {
+        if (head - this.next > reader.capacity) {
+          this.skip(head);
+          continue;
+        }
+
+        int slot = SharedMemoryLayout.slotOffset(this.next & (reader.capacity - 1));
+        long stamp = reader.buffer.getLong(slot);
+        SharedMemoryLayout.loadFence();
+        long nanoTime = reader.buffer.getLong(slot + SharedMemoryLayout.NANO_TIME_OFFSET);
+        long pressDuration = reader.buffer.getLong(slot + SharedMemoryLayout.PRESS_DURATION_OFFSET);
+        int event = reader.buffer.getInt(slot + SharedMemoryLayout.EVENT_OFFSET);
+        SharedMemoryLayout.loadFence();
+
+        if (stamp != SharedMemoryLayout.stamp(this.next) || reader.buffer.getLong(slot) != stamp) {
+          head = reader.head();
+          this.skip(head);
+          continue;
+        }
+
+        this.next++;
+        handler.onEvent(event & 0xFF, KEY_STATES[event >>> 8], nanoTime, pressDuration);
+        count++;
+      }
+      return count;
+    }
+
+    /**
+     * Moves this cursor past an event which has been overwritten, to the oldest event which is still available.
+     *
+     * @param head the sequence of the next event to be published
+     */
+    private void skip(long head) {
+      long next = Math.max(this.next + 1, head - SharedMemoryReader.this.capacity + 1);
+      this.lost += next - this.next;
+      this.next = next;
+    }
+  }
+
+  /**
+   * Passes events to an {@link Emitter} as {@link KeyStateUpdate}s.
+   */
+  private static final class EmitterKeyEventHandler implements KeyEventHandler {
+    private final Emitter<KeyStateUpdate> emitter;
+
+    private EmitterKeyEventHandler(Emitter<KeyStateUpdate> emitter) {
+      this.emitter = emitter;
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+      this.onEvent(virtualKeyCode, keyState, nanoTime, 0);
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+      this.emitter.onNext(new KeyStateUpdate(virtualKeyCode, keyState, nanoTime, pressDurationNanos));
+    }
+  }
+}
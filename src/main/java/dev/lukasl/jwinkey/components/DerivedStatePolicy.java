@@ -0,0 +1,89 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * A derived state policy defines the thresholds after which a
+ * {@link dev.lukasl.jwinkey.observables.KeyStateObservable} reports the derived key states
+ * {@link dev.lukasl.jwinkey.enums.KeyState#HELD},
+ * {@link dev.lukasl.jwinkey.enums.KeyState#LONG_PRESSED}, {@link dev.lukasl.jwinkey.enums.KeyState#REPEATED} and
+ * {@link dev.lukasl.jwinkey.enums.KeyState#DOUBLE_TAPPED}.
+ * <p>Derived states are detected by the scans of the poller, so their resolution is the polling period. A threshold of
+ * 0 disables the corresponding state.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class DerivedStatePolicy {
+  public static final DerivedStatePolicy DEFAULT = DerivedStatePolicy.of(
+    Duration.ofMillis(200),
+    Duration.ofMillis(800),
+    Duration.ofMillis(500),
+    Duration.ofMillis(33),
+    Duration.ofMillis(300)
+  );
+
+  long holdDelayNanos;
+  long longPressDelayNanos;
+  long repeatDelayNanos;
+  long repeatIntervalNanos;
+  long doubleTapWindowNanos;
+
+  /**
+   * Creates a new policy. Thresholds which are null are disabled.
+   *
+   * @param holdDelay       the time after which a pressed key is reported as held
+   * @param longPressDelay  the time after which a pressed key is reported as long pressed
+   * @param repeatDelay     the time after which a pressed key starts to be reported as repeated
+   * @param repeatInterval  the time between two repetitions, required if the repeat delay is set
+   * @param doubleTapWindow the maximum time between two presses of a key reported as double tapped
+   * @return the policy
+   */
+  @Builder
+  public static DerivedStatePolicy of(
+    Duration holdDelay,
+    Duration longPressDelay,
+    Duration repeatDelay,
+    Duration repeatInterval,
+    Duration doubleTapWindow
+  ) {
+    long repeatDelayNanos = toNanos(repeatDelay);
+    long repeatIntervalNanos = toNanos(repeatInterval);
+    if (repeatDelayNanos > 0 && repeatIntervalNanos == 0) {
+      throw new IllegalArgumentException("repeat interval must be positive if repeating is enabled");
+    }
+    return new DerivedStatePolicy(
+      toNanos(holdDelay), toNanos(longPressDelay), repeatDelayNanos, repeatIntervalNanos, toNanos(doubleTapWindow)
+    );
+  }
+
+  private static long toNanos(Duration duration) {
+    if (duration == null) {
+      return 0;
+    }
+    if (duration.isNegative()) {
+      throw new IllegalArgumentException("thresholds must not be negative");
+    }
+    return duration.toNanos();
+  }
+}
@@ -0,0 +1,242 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import lombok.NonNull;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+/**
+ * A thread-safe set of virtual key codes which is backed by four {@code long} words, one bit per virtual key code.
+ * <p>Single-key updates are atomic and neither box nor allocate. Multi-key queries are answered by comparing masks
+ * word by word.
+ */
+public class KeyBitSet {
+  /**
+   * The number of {@code long} words backing a set of all 256 virtual key codes.
+   */
+  public static final int WORDS = 4;
+
+  private final AtomicLongArray words = new AtomicLongArray(WORDS);
+
+  /**
+   * Adds the passed virtual key code to this set.
+   *
+   * @param virtualKeyCode the virtual key code to be added
+   * @return true if the virtual key code has not been contained before
+   */
+  public boolean add(int virtualKeyCode) {
+    int index = index(virtualKeyCode);
+    long bit = bit(virtualKeyCode);
+    long word;
+    do {
+      word = this.words.get(index);
+      if ((word & bit) != 0) {
+        return false;
+      }
+    } while (!this.words.compareAndSet(index, word, word | bit));
+    return true;
+  }
+
+  /**
+   * Removes the passed virtual key code from this set.
+   *
+   * @param virtualKeyCode the virtual key code to be removed
+   * @return true if the virtual key code has been contained before
+   */
+  public boolean remove(int virtualKeyCode) {
+    int index = index(virtualKeyCode);
+    long bit = bit(virtualKeyCode);
+    long word;
+    do {
+      word = this.words.get(index);
+      if ((word & bit) == 0) {
+        return false;
+      }
+    } while (!this.words.compareAndSet(index, word, word & ~bit));
+    return true;
+  }
+
+  public void addAll(@NonNull Collection<Integer> virtualKeyCodes) {
+    virtualKeyCodes.forEach(this::add);
+  }
+
+  public void removeAll(@NonNull Collection<Integer> virtualKeyCodes) {
+    virtualKeyCodes.forEach(this::remove);
+  }
+
+  public void clear() {
+    for (int i = 0; i < WORDS; i++) {
+      this.words.set(i, 0);
+    }
+  }
+
+  public boolean contains(int virtualKeyCode) {
+    return (this.words.get(index(virtualKeyCode)) & bit(virtualKeyCode)) != 0;
+  }
+
+  /**
+   * Checks whether all bits of the passed mask are contained in this set.
+   *
+   * @param word0 the bits of the virtual key codes {@code 0x00} to {@code 0x3F}
+   * @param word1 the bits of the virtual key codes {@code 0x40} to {@code 0x7F}
+   * @param word2 the bits of the virtual key codes {@code 0x80} to {@code 0xBF}
+   * @param word3 the bits of the virtual key codes {@code 0xC0} to {@code 0xFF}
+   * @return true if every bit of the mask is set
+   */
+  public boolean containsAll(long word0, long word1, long word2, long word3) {
+    return (this.words.get(0) & word0) == word0
+      && (this.words.get(1) & word1) == word1
+      && (this.words.get(2) & word2) == word2
+      && (this.words.get(3) & word3) == word3;
+  }
+
+  public boolean containsAll(@NonNull KeySet keySet) {
+    return this.containsAll(keySet.word(0), keySet.word(1), keySet.word(2), keySet.word(3));
+  }
+
+  public boolean intersects(@NonNull KeySet keySet) {
+    for (int i = 0; i < WORDS; i++) {
+      if ((this.words.get(i) & keySet.word(i)) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public void addAll(@NonNull KeySet keySet) {
+    keySet.forEach(this::add);
+  }
+
+  public void removeAll(@NonNull KeySet keySet) {
+    keySet.forEach(this::remove);
+  }
+
+  /**
+   * Returns an immutable copy of this set. Concurrent updates of single words may be interleaved with the copy.
+   *
+   * @return the copy
+   */
+  public KeySet snapshot() {
+    return KeySet.of(this.words.get(0), this.words.get(1), this.words.get(2), this.words.get(3));
+  }
+
+  /**
+   * Returns the word at the passed index.
+   *
+   * @param index the index of the word, between {@code 0} and {@link #WORDS} (exclusive)
+   * @return the bits of the virtual key codes {@code index * 64} to {@code index * 64 + 63}
+   */
+  public long word(int index) {
+    return this.words.get(index);
+  }
+
+  public boolean isEmpty() {
+    for (int i = 0; i < WORDS; i++) {
+      if (this.words.get(i) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public int size() {
+    int size = 0;
+    for (int i = 0; i < WORDS; i++) {
+      size += Long.bitCount(this.words.get(i));
+    }
+    return size;
+  }
+
+  public void forEach(@NonNull IntConsumer consumer) {
+    for (int i = 0; i < WORDS; i++) {
+      forEach(i, this.words.get(i), consumer);
+    }
+  }
+
+  /**
+   * Collects the virtual key codes contained in this set but not in the passed one.
+   *
+   * @param other the set whose virtual key codes are excluded
+   * @return the difference as a new {@link Set}
+   */
+  public Set<Integer> difference(@NonNull KeyBitSet other) {
+    Set<Integer> difference = new HashSet<>();
+    for (int i = 0; i < WORDS; i++) {
+      forEach(i, this.words.get(i) & ~other.words.get(i), difference::add);
+    }
+    return difference;
+  }
+
+  public Set<Integer> toSet() {
+    Set<Integer> set = new HashSet<>();
+    this.forEach(set::add);
+    return set;
+  }
+
+  @Override
+  public String toString() {
+    return "KeyBitSet" + this.toSet();
+  }
+
+  private static void forEach(int index, long word, IntConsumer consumer) {
+    while (word != 0) {
+      consumer.accept((index << 6) | Long.numberOfTrailingZeros(word));
+      word &= word - 1;
+    }
+  }
+
+  /**
+   * Returns the index of the word holding the passed virtual key code.
+   *
+   * @param virtualKeyCode the virtual key code
+   * @return the index of the word
+   * @throws IllegalArgumentException if the virtual key code is not between 0 and 255
+   */
+  public static int index(int virtualKeyCode) {
+    return checkVirtualKeyCode(virtualKeyCode) >>> 6;
+  }
+
+  /**
+   * Returns the bit of the passed virtual key code within its word.
+   *
+   * @param virtualKeyCode the virtual key code
+   * @return the bit of the virtual key code
+   * @throws IllegalArgumentException if the virtual key code is not between 0 and 255
+   */
+  public static long bit(int virtualKeyCode) {
+    return 1L << (checkVirtualKeyCode(virtualKeyCode) & 0x3F);
+  }
+
+  /**
+   * Checks that the passed virtual key code is between 0 and 255, so it is not silently mapped onto another key.
+   *
+   * @param virtualKeyCode the virtual key code to be checked
+   * @return the virtual key code
+   * @throws IllegalArgumentException if the virtual key code is out of range
+   */
+  public static int checkVirtualKeyCode(int virtualKeyCode) {
+    if ((virtualKeyCode & ~0xFF) != 0) {
+      throw new IllegalArgumentException("virtual key code " + virtualKeyCode + " is not between 0 and 255");
+    }
+    return virtualKeyCode;
+  }
+}
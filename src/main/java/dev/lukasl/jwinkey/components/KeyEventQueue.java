@@ -0,0 +1,119 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free queue of key events for any number of producers and a single consumer. Events are stored in
+ * primitive arrays, so neither offering nor polling allocates.
+ * <p>Producers claim a slot by advancing the tail with a CAS and publish it by writing its sequence, so the consumer
+ * never reads a slot which is still being written.
+ */
+public class KeyEventQueue {
+  private static final KeyState[] KEY_STATES = KeyState.values();
+
+  private final int[] events;
+  private final long[] timestamps;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  @Getter
+  private final int capacity;
+
+  /**
+   * Constructs a new queue.
+   *
+   * @param capacity the minimum number of events the queue can hold, rounded up to the next power of two
+   */
+  public KeyEventQueue(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+    }
+    this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.mask = this.capacity - 1;
+    this.events = new int[this.capacity];
+    this.timestamps = new long[this.capacity];
+    this.sequences = new AtomicLongArray(this.capacity);
+    for (int index = 0; index < this.capacity; index++) {
+      this.sequences.set(index, index);
+    }
+  }
+
+  /**
+   * Appends an event. May be called by any thread.
+   *
+   * @param virtualKeyCode the virtual key code of the event
+   * @param keyState       the key state of the event
+   * @param nanoTime       the time of the event
+   * @return false if the queue is full
+   */
+  public boolean offer(int virtualKeyCode, KeyState keyState, long nanoTime) {
+    while (true) {
+      long tail = this.tail.get();
+      int index = (int) tail & this.mask;
+      long sequence = this.sequences.get(index);
+
+      if (sequence < tail) {
+        return false;
+      }
+
+      if (sequence == tail && this.tail.compareAndSet(tail, tail + 1)) {
+        this.events[index] = (virtualKeyCode & 0xFF) | keyState.ordinal() << 8;
+        this.timestamps[index] = nanoTime;
+        this.sequences.set(index, tail + 1);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Removes the oldest event and passes it to the passed handler. Must only be called by the consumer.
+   *
+   * @param handler the handler receiving the event
+   * @return false if the queue is empty or its oldest event is still being written
+   */
+  public boolean poll(KeyEventHandler handler) {
+    long head = this.head.get();
+    int index = (int) head & this.mask;
+    if (this.sequences.get(index) != head + 1) {
+      return false;
+    }
+
+    int event = this.events[index];
+    long timestamp = this.timestamps[index];
+    this.sequences.lazySet(index, head + this.capacity);
+    this.head.lazySet(head + 1);
+    handler.onEvent(event & 0xFF, KEY_STATES[event >>> 8], timestamp);
+    return true;
+  }
+
+  public int size() {
+    return (int) Math.max(0, Math.min(this.capacity, this.tail.get() - this.head.get()));
+  }
+
+  public boolean isEmpty() {
+    return this.size() == 0;
+  }
+}
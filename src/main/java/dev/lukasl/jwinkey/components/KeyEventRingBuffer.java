@@ -0,0 +1,136 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free ring buffer of key events for a single producer and a single consumer. Events are stored in
+ * primitive arrays, so neither offering nor polling allocates.
+ * <p>Besides the consumer, the producer may remove the oldest event using {@link #dropOldest()}. Both claim events by
+ * advancing the head with a CAS, so an event is either consumed or dropped, never both.
+ */
+public class KeyEventRingBuffer {
+  private static final KeyState[] KEY_STATES = KeyState.values();
+
+  private final int[] events;
+  private final long[] timestamps;
+  private final long[] pressDurations;
+  private final int mask;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  @Getter
+  private final int capacity;
+
+  /**
+   * Constructs a new ring buffer.
+   *
+   * @param capacity the minimum number of events the buffer can hold, rounded up to the next power of two
+   */
+  public KeyEventRingBuffer(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+    }
+    this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    this.mask = this.capacity - 1;
+    this.events = new int[this.capacity];
+    this.timestamps = new long[this.capacity];
+    this.pressDurations = new long[this.capacity];
+  }
+
+  /**
+   * Appends an event. Must only be called by the producer.
+   *
+   * @param virtualKeyCode the virtual key code of the event
+   * @param keyState       the key state of the event
+   * @param nanoTime       the time of the event
+   * @return false if the buffer is full
+   */
+  public boolean offer(int virtualKeyCode, KeyState keyState, long nanoTime) {
+    return this.offer(virtualKeyCode, keyState, nanoTime, 0);
+  }
+
+  /**
+   * Appends an event of a key which has been held for the passed time. Must only be called by the producer.
+   *
+   * @param virtualKeyCode     the virtual key code of the event
+   * @param keyState           the key state of the event
+   * @param nanoTime           the time of the event
+   * @param pressDurationNanos the time the key has been held, or 0
+   * @return false if the buffer is full
+   */
+  public boolean offer(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+    long tail = this.tail.get();
+    if (tail - this.head.get() >= this.capacity) {
+      return false;
+    }
+
+    int index = (int) tail & this.mask;
+    this.events[index] = (virtualKeyCode & 0xFF) | keyState.ordinal() << 8;
+    this.timestamps[index] = nanoTime;
+    this.pressDurations[index] = pressDurationNanos;
+    this.tail.lazySet(tail + 1);
+    return true;
+  }
+
+  /**
+   * Removes the oldest event without consuming it.
+   *
+   * @return true if an event has been removed
+   */
+  public boolean dropOldest() {
+    long head = this.head.get();
+    return head < this.tail.get() && this.head.compareAndSet(head, head + 1);
+  }
+
+  /**
+   * Removes the oldest event and passes it to the passed handler. Must only be called by the consumer.
+   *
+   * @param handler the handler receiving the event
+   * @return false if the buffer is empty
+   */
+  public boolean poll(KeyEventHandler handler) {
+    while (true) {
+      long head = this.head.get();
+      if (head >= this.tail.get()) {
+        return false;
+      }
+
+      int index = (int) head & this.mask;
+      int event = this.events[index];
+      long timestamp = this.timestamps[index];
+      long pressDuration = this.pressDurations[index];
+      if (this.head.compareAndSet(head, head + 1)) {
+        handler.onEvent(event & 0xFF, KEY_STATES[event >>> 8], timestamp, pressDuration);
+        return true;
+      }
+    }
+  }
+
+  public int size() {
+    return (int) Math.max(0, this.tail.get() - this.head.get());
+  }
+
+  public boolean isEmpty() {
+    return this.size() == 0;
+  }
+}
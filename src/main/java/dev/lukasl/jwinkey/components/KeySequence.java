@@ -0,0 +1,52 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import lombok.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A key sequence is a series of keys which have to be pressed one after another, each within the timeout of the
+ * previous press.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class KeySequence {
+  private static final Duration DEFAULT_TIMEOUT = Duration.ofMillis(500);
+
+  private final int id;
+  private final List<Integer> virtualKeyCodes;
+  private final Duration timeout;
+
+  @Builder
+  public static KeySequence of(int id, List<Integer> virtualKeyCodes, Duration timeout) {
+    if (virtualKeyCodes == null || virtualKeyCodes.isEmpty()) {
+      throw new IllegalArgumentException("a key sequence requires at least one virtual key code");
+    }
+    return new KeySequence(
+      id != 0 ? id : ThreadLocalRandom.current().nextInt() + 1,
+      new ArrayList<>(virtualKeyCodes),
+      timeout != null ? timeout : DEFAULT_TIMEOUT
+    );
+  }
+}
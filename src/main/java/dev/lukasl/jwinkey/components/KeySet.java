@@ -0,0 +1,176 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import dev.lukasl.jwinkey.enums.VirtualKey;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntConsumer;
+
+/**
+ * An immutable set of virtual key codes, stored as four {@code long} words with one bit per virtual key code.
+ * <p>Key sets are built once and then used for allocation-free checks, e.g. by
+ * {@link dev.lukasl.jwinkey.observables.KeyStateObservable#isPressed(KeySet)}.
+ */
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class KeySet {
+  public static final KeySet EMPTY = new KeySet(0, 0, 0, 0);
+
+  private final long word0;
+  private final long word1;
+  private final long word2;
+  private final long word3;
+
+  /**
+   * Returns the word at the passed index.
+   *
+   * @param index the index of the word, between {@code 0} and {@link KeyBitSet#WORDS} (exclusive)
+   * @return the bits of the virtual key codes {@code index * 64} to {@code index * 64 + 63}
+   */
+  public long word(int index) {
+    switch (index) {
+      case 0:
+        return this.word0;
+      case 1:
+        return this.word1;
+      case 2:
+        return this.word2;
+      case 3:
+        return this.word3;
+      default:
+        throw new IndexOutOfBoundsException("word index " + index + " out of bounds");
+    }
+  }
+
+  public boolean contains(int virtualKeyCode) {
+    return (this.word(KeyBitSet.index(virtualKeyCode)) & KeyBitSet.bit(virtualKeyCode)) != 0;
+  }
+
+  public boolean contains(@NonNull VirtualKey virtualKey) {
+    return this.contains(virtualKey.getVirtualKeyCode());
+  }
+
+  public boolean containsAll(@NonNull KeySet other) {
+    return (this.word0 & other.word0) == other.word0
+      && (this.word1 & other.word1) == other.word1
+      && (this.word2 & other.word2) == other.word2
+      && (this.word3 & other.word3) == other.word3;
+  }
+
+  public boolean intersects(@NonNull KeySet other) {
+    return (this.word0 & other.word0) != 0
+      || (this.word1 & other.word1) != 0
+      || (this.word2 & other.word2) != 0
+      || (this.word3 & other.word3) != 0;
+  }
+
+  public KeySet union(@NonNull KeySet other) {
+    return of(this.word0 | other.word0, this.word1 | other.word1, this.word2 | other.word2, this.word3 | other.word3);
+  }
+
+  public KeySet intersection(@NonNull KeySet other) {
+    return of(this.word0 & other.word0, this.word1 & other.word1, this.word2 & other.word2, this.word3 & other.word3);
+  }
+
+  public KeySet difference(@NonNull KeySet other) {
+    return of(
+      this.word0 & ~other.word0,
+      this.word1 & ~other.word1,
+      this.word2 & ~other.word2,
+      this.word3 & ~other.word3
+    );
+  }
+
+  public boolean isEmpty() {
+    return (this.word0 | this.word1 | this.word2 | this.word3) == 0;
+  }
+
+  public int size() {
+    return Long.bitCount(this.word0)
+      + Long.bitCount(this.word1)
+      + Long.bitCount(this.word2)
+      + Long.bitCount(this.word3);
+  }
+
+  public void forEach(@NonNull IntConsumer consumer) {
+    for (int index = 0; index < KeyBitSet.WORDS; index++) {
+      long word = this.word(index);
+      while (word != 0) {
+        consumer.accept((index << 6) | Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+  }
+
+  public Set<Integer> toSet() {
+    Set<Integer> set = new HashSet<>();
+    this.forEach(set::add);
+    return set;
+  }
+
+  public Set<VirtualKey> toVirtualKeys() {
+    Set<VirtualKey> virtualKeys = EnumSet.noneOf(VirtualKey.class);
+    this.forEach((virtualKeyCode) -> {
+      VirtualKey virtualKey = VirtualKey.lookup(virtualKeyCode);
+      if (virtualKey != null) {
+        virtualKeys.add(virtualKey);
+      }
+    });
+    return virtualKeys;
+  }
+
+  @Override
+  public String toString() {
+    return "KeySet" + this.toSet();
+  }
+
+  public static KeySet of(long word0, long word1, long word2, long word3) {
+    return (word0 | word1 | word2 | word3) == 0 ? EMPTY : new KeySet(word0, word1, word2, word3);
+  }
+
+  public static KeySet of(@NonNull int... virtualKeyCodes) {
+    long[] words = new long[KeyBitSet.WORDS];
+    for (int virtualKeyCode : virtualKeyCodes) {
+      words[KeyBitSet.index(virtualKeyCode)] |= KeyBitSet.bit(virtualKeyCode);
+    }
+    return of(words[0], words[1], words[2], words[3]);
+  }
+
+  public static KeySet of(@NonNull VirtualKey... virtualKeys) {
+    long[] words = new long[KeyBitSet.WORDS];
+    for (VirtualKey virtualKey : virtualKeys) {
+      words[KeyBitSet.index(virtualKey.getVirtualKeyCode())] |= KeyBitSet.bit(virtualKey.getVirtualKeyCode());
+    }
+    return of(words[0], words[1], words[2], words[3]);
+  }
+
+  public static KeySet of(@NonNull Collection<Integer> virtualKeyCodes) {
+    long[] words = new long[KeyBitSet.WORDS];
+    for (int virtualKeyCode : virtualKeyCodes) {
+      words[KeyBitSet.index(virtualKeyCode)] |= KeyBitSet.bit(virtualKeyCode);
+    }
+    return of(words[0], words[1], words[2], words[3]);
+  }
+}
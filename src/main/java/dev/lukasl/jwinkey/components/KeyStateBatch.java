@@ -0,0 +1,134 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable batch of all events a {@link dev.lukasl.jwinkey.observables.KeyStateObservable} has emitted during a
+ * single scan, in the order they have been emitted.
+ * <p>Events are stored in primitive arrays, so a batch costs the same few allocations regardless of its size.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class KeyStateBatch {
+  private static final KeyState[] KEY_STATES = KeyState.values();
+
+  /**
+   * The number of scans performed by the poller before the scan which emitted this batch.
+   */
+  @Getter
+  private final long tick;
+
+  /**
+   * The {@link System#nanoTime()} of the scan which emitted this batch.
+   */
+  @Getter
+  private final long nanoTime;
+
+  private final int[] events;
+  private final long[] pressDurations;
+
+  public int size() {
+    return this.events.length;
+  }
+
+  public int getVirtualKeyCode(int index) {
+    return this.events[index] & 0xFF;
+  }
+
+  public KeyState getKeyState(int index) {
+    return KEY_STATES[this.events[index] >>> 8];
+  }
+
+  public long getPressDurationNanos(int index) {
+    return this.pressDurations[index];
+  }
+
+  /**
+   * Passes every event of this batch to the passed handler.
+   *
+   * @param handler the handler receiving the events
+   */
+  public void forEach(@NonNull KeyEventHandler handler) {
+    for (int index = 0; index < this.events.length; index++) {
+      int virtualKeyCode = this.getVirtualKeyCode(index);
+      handler.onEvent(virtualKeyCode, this.getKeyState(index), this.nanoTime, this.pressDurations[index]);
+    }
+  }
+
+  public List<KeyStateUpdate> toUpdates() {
+    List<KeyStateUpdate> updates = new ArrayList<>(this.events.length);
+    for (int index = 0; index < this.events.length; index++) {
+      updates.add(new KeyStateUpdate(
+        this.getVirtualKeyCode(index), this.getKeyState(index), this.nanoTime, this.pressDurations[index]
+      ));
+    }
+    return updates;
+  }
+
+  @Override
+  public String toString() {
+    return "KeyStateBatch(tick=" + this.tick + ", nanoTime=" + this.nanoTime + ", updates=" + this.toUpdates() + ")";
+  }
+
+  /**
+   * A reusable builder collecting the events of one scan.
+   */
+  public static final class Builder {
+    private int[] events = new int[16];
+    private long[] pressDurations = new long[16];
+    private int size;
+
+    public Builder add(int virtualKeyCode, @NonNull KeyState keyState, long pressDurationNanos) {
+      if (this.size == this.events.length) {
+        this.events = Arrays.copyOf(this.events, this.size << 1);
+        this.pressDurations = Arrays.copyOf(this.pressDurations, this.size << 1);
+      }
+      this.events[this.size] = (virtualKeyCode & 0xFF) | keyState.ordinal() << 8;
+      this.pressDurations[this.size] = pressDurationNanos;
+      this.size++;
+      return this;
+    }
+
+    public boolean isEmpty() {
+      return this.size == 0;
+    }
+
+    /**
+     * Builds a batch of the collected events and clears this builder.
+     *
+     * @param tick     the number of scans performed by the poller before
+     * @param nanoTime the time of the scan
+     * @return the batch
+     */
+    public KeyStateBatch build(long tick, long nanoTime) {
+      int[] events = Arrays.copyOf(this.events, this.size);
+      long[] pressDurations = Arrays.copyOf(this.pressDurations, this.size);
+      this.size = 0;
+      return new KeyStateBatch(tick, nanoTime, events, pressDurations);
+    }
+  }
+}
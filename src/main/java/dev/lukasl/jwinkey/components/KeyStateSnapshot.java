@@ -0,0 +1,88 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import dev.lukasl.jwinkey.enums.VirtualKey;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * An immutable snapshot of the pressed keys of a {@link dev.lukasl.jwinkey.observables.KeyStateObservable}, as seen
+ * by a single scan.
+ * <p>Observables publish a new snapshot whenever a scan changes the state of an observed key, so all queries of one
+ * snapshot are consistent with each other, and readers polling once per frame can skip frames whose snapshot has the
+ * same {@link #getSequence()} as the previous one.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class KeyStateSnapshot {
+  public static final KeyStateSnapshot EMPTY = new KeyStateSnapshot(0, 0, 0, KeySet.EMPTY);
+
+  /**
+   * The number of snapshots published before this one by the same observable.
+   */
+  private final long sequence;
+
+  /**
+   * The number of scans performed by the poller before the scan which produced this snapshot.
+   */
+  private final long tick;
+
+  /**
+   * The {@link System#nanoTime()} of the scan which produced this snapshot.
+   */
+  private final long nanoTime;
+
+  private final KeySet pressed;
+
+  /**
+   * Creates the snapshot succeeding this one.
+   *
+   * @param tick     the number of scans performed by the poller
+   * @param nanoTime the time of the scan
+   * @param pressed  the pressed keys
+   * @return the next snapshot
+   */
+  public KeyStateSnapshot next(long tick, long nanoTime, @NonNull KeySet pressed) {
+    return new KeyStateSnapshot(this.sequence + 1, tick, nanoTime, pressed);
+  }
+
+  public boolean isPressed(int virtualKeyCode) {
+    return this.pressed.contains(virtualKeyCode);
+  }
+
+  public boolean isPressed(@NonNull VirtualKey virtualKey) {
+    return this.pressed.contains(virtualKey);
+  }
+
+  public boolean isPressed(@NonNull KeySet virtualKeyCodes) {
+    return this.pressed.containsAll(virtualKeyCodes);
+  }
+
+  public boolean isPressed(int... virtualKeyCodes) {
+    for (int virtualKeyCode : virtualKeyCodes) {
+      if (!this.pressed.contains(virtualKeyCode)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -17,14 +17,41 @@
 package dev.lukasl.jwinkey.components;
 
 import dev.lukasl.jwinkey.enums.KeyState;
+import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.ToString;
 
+import java.time.Duration;
+
 @Getter
 @ToString
-@RequiredArgsConstructor
+@AllArgsConstructor
 public class KeyStateUpdate {
   private final int virtualKeyCode;
   private final KeyState keyState;
+
+  /**
+   * The {@link System#nanoTime()} of the scan which detected the transition.
+   */
+  private final long nanoTime;
+
+  /**
+   * The time in nanoseconds the key has been held if it has been released or is reported as held, repeated or long
+   * pressed, otherwise 0.
+   */
+  private final long pressDurationNanos;
+
+  /**
+   * Constructs an update detected now, without a press duration.
+   *
+   * @param virtualKeyCode the virtual key code of the key
+   * @param keyState       the new state of the key
+   */
+  public KeyStateUpdate(int virtualKeyCode, KeyState keyState) {
+    this(virtualKeyCode, keyState, System.nanoTime(), 0);
+  }
+
+  public Duration getPressDuration() {
+    return Duration.ofNanos(this.pressDurationNanos);
+  }
 }
@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * A movement of the cursor emitted by a {@link dev.lukasl.jwinkey.observables.MouseMotionObservable}.
+ * <p>Its delta spans all scans since the previously emitted movement, including those held back by the
+ * {@link MouseMotionPolicy}, so summing the deltas of all movements yields the total distance the cursor has moved.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MouseMotion {
+  /**
+   * The position of the cursor in screen coordinates.
+   */
+  private final int x;
+  private final int y;
+
+  /**
+   * The distance since the previous movement emitted to the subscriber.
+   */
+  private final int deltaX;
+  private final int deltaY;
+
+  /**
+   * The {@link System#nanoTime()} of the scan which detected the movement.
+   */
+  private final long nanoTime;
+}
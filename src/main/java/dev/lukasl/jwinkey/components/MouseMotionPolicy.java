@@ -0,0 +1,60 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+
+/**
+ * A mouse motion policy throttles the movements a {@link dev.lukasl.jwinkey.observables.MouseMotionObservable} emits.
+ * <p>The cursor is sampled once per scan of the poller, so all movements between two scans are coalesced into one.
+ * Movements which are closer than the minimum distance to the previously emitted position or which follow it within
+ * the minimum interval are held back and included in the delta of the next emitted movement.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class MouseMotionPolicy {
+  /**
+   * Emits every scan which has detected a movement.
+   */
+  public static final MouseMotionPolicy EVERY_SCAN = new MouseMotionPolicy(0, 0);
+
+  long minIntervalNanos;
+  int minDistance;
+
+  /**
+   * Creates a new policy.
+   *
+   * @param minInterval the minimum time between two emitted movements, or null for none
+   * @param minDistance the minimum distance along either axis from the previously emitted position
+   * @return the policy
+   */
+  @Builder
+  public static MouseMotionPolicy of(Duration minInterval, int minDistance) {
+    if (minInterval != null && minInterval.isNegative()) {
+      throw new IllegalArgumentException("minimum interval must not be negative");
+    }
+    if (minDistance < 0) {
+      throw new IllegalArgumentException("minimum distance must not be negative");
+    }
+    return new MouseMotionPolicy(minInterval != null ? minInterval.toNanos() : 0, minDistance);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A polling policy defines the period between two scans of a {@link dev.lukasl.jwinkey.observables.KeyStatePoller}.
+ * <p>Fixed policies always scan at the same period. Adaptive policies scan at the active period while keys are in use
+ * and back off to the idle period once no registered key has been pressed or changed its state for the idle timeout.
+ * The first scan noticing a change switches back to the active period.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class PollingPolicy {
+  long activePeriodNanos;
+  long idlePeriodNanos;
+  long idleTimeoutNanos;
+
+  public boolean isAdaptive() {
+    return this.idlePeriodNanos != this.activePeriodNanos;
+  }
+
+  /**
+   * Returns the period until the next scan.
+   *
+   * @param idleNanos the time since a registered key has been pressed or changed its state the last time
+   * @return the period in nanoseconds
+   */
+  public long getPeriodNanos(long idleNanos) {
+    return idleNanos >= this.idleTimeoutNanos ? this.idlePeriodNanos : this.activePeriodNanos;
+  }
+
+  public static PollingPolicy fixed(long period, @NonNull TimeUnit unit) {
+    if (period < 0) {
+      throw new IllegalArgumentException("period must not be negative");
+    }
+    long periodNanos = unit.toNanos(period);
+    return new PollingPolicy(periodNanos, periodNanos, Long.MAX_VALUE);
+  }
+
+  public static PollingPolicy adaptive(long activePeriod, long idlePeriod, long idleTimeout, @NonNull TimeUnit unit) {
+    if (activePeriod < 0 || idleTimeout < 0) {
+      throw new IllegalArgumentException("periods and timeouts must not be negative");
+    }
+    if (idlePeriod < activePeriod) {
+      throw new IllegalArgumentException("idle period must not be shorter than the active period");
+    }
+    return new PollingPolicy(unit.toNanos(activePeriod), unit.toNanos(idlePeriod), unit.toNanos(idleTimeout));
+  }
+}
@@ -16,19 +16,58 @@
 
 package dev.lukasl.jwinkey.enums;
 
-import com.sun.jna.platform.win32.User32;
+import dev.lukasl.jwinkey.components.DerivedStatePolicy;
+import dev.lukasl.jwinkey.sources.User32KeyStateSource;
 
 public enum KeyState {
   PRESSED,
-  RELEASED;
+  RELEASED,
+
+  /**
+   * The key has been pressed for the hold delay of the {@link DerivedStatePolicy}. Reported once per press.
+   */
+  HELD,
+
+  /**
+   * The key is still pressed after the repeat delay of the {@link DerivedStatePolicy}. Reported once per repeat
+   * interval.
+   */
+  REPEATED,
+
+  /**
+   * The key has been pressed for the long press delay of the {@link DerivedStatePolicy}. Reported once per press.
+   */
+  LONG_PRESSED,
+
+  /**
+   * The key has been pressed a second time within the double tap window of the {@link DerivedStatePolicy}. Reported
+   * right after {@link #PRESSED}.
+   */
+  DOUBLE_TAPPED;
 
   private static final int KEY_PRESSED_MASK = 0x8000;
 
-  private static KeyState fromKeyState(int keyState) {
+  /**
+   * Returns whether this state is read from a key state source, rather than derived from the time a key has been
+   * pressed.
+   *
+   * @return true for {@link #PRESSED} and {@link #RELEASED}
+   */
+  public boolean isTransition() {
+    return this == PRESSED || this == RELEASED;
+  }
+
+  /**
+   * Converts the passed raw key state, as returned by {@code GetAsyncKeyState}, into a {@link KeyState}.
+   *
+   * @param keyState the raw key state
+   * @return the converted {@link KeyState}
+   */
+  public static KeyState fromKeyState(int keyState) {
     return (keyState & KEY_PRESSED_MASK) == KEY_PRESSED_MASK ? PRESSED : RELEASED;
   }
 
   public static KeyState getKeyState(int virtualKeyCode) {
-    return fromKeyState(User32.INSTANCE.GetAsyncKeyState(virtualKeyCode));
+    return User32KeyStateSource.INSTANCE.getKeyState(virtualKeyCode);
   }
 }
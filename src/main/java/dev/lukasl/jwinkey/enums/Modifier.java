@@ -20,8 +20,8 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NonNull;
 
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Optional;
 
 /**
  * Modifiers are the keys that must be pressed in combination with another key.
@@ -37,6 +37,34 @@ public enum Modifier {
 
   private final int code;
 
+  /**
+   * Searches the {@link Modifier} which is held by the key of the passed virtual key code.
+   *
+   * @param virtualKeyCode the virtual key code of a modifier key, either generic or left/right specific
+   * @return the found {@link Modifier}
+   */
+  public static Optional<Modifier> fromVirtualKeyCode(int virtualKeyCode) {
+    switch (virtualKeyCode) {
+      case 0x12:
+      case 0xA4:
+      case 0xA5:
+        return Optional.of(ALT);
+      case 0x11:
+      case 0xA2:
+      case 0xA3:
+        return Optional.of(CONTROL);
+      case 0x10:
+      case 0xA0:
+      case 0xA1:
+        return Optional.of(SHIFT);
+      case 0x5B:
+      case 0x5C:
+        return Optional.of(WIN);
+      default:
+        return Optional.empty();
+    }
+  }
+
   /**
    * Combines the passed modifiers.
    *
@@ -44,10 +72,11 @@ public enum Modifier {
    * @return the combined modifiers as int
    */
   public static int combine(@NonNull Collection<Modifier> modifiers) {
-    return modifiers.stream()
-      .map(Modifier::getCode)
-      .reduce((i, j) -> i | j)
-      .orElse(0);
+    int combined = 0;
+    for (Modifier modifier : modifiers) {
+      combined |= modifier.code;
+    }
+    return combined;
   }
 
   /**
@@ -57,6 +86,10 @@ public enum Modifier {
    * @return the combined modifiers as int
    */
   public static int combine(@NonNull Modifier... modifiers) {
-    return combine(Arrays.asList(modifiers.clone()));
+    int combined = 0;
+    for (Modifier modifier : modifiers) {
+      combined |= modifier.code;
+    }
+    return combined;
   }
 }
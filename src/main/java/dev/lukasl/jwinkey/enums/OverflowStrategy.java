@@ -0,0 +1,43 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.enums;
+
+/**
+ * Overflow strategies define what happens to a key event if the buffer between the poller and a slow consumer is
+ * full.
+ */
+public enum OverflowStrategy {
+  /**
+   * Drops the oldest buffered event to make room for the new one.
+   */
+  DROP_OLDEST,
+
+  /**
+   * Drops the new event.
+   */
+  DROP_NEWEST,
+
+  /**
+   * Keeps only the latest state of every key which could not be buffered and delivers it once the consumer catches up.
+   */
+  COALESCE,
+
+  /**
+   * Blocks the poller until the consumer has made room. Polling latency depends on the consumer in this mode.
+   */
+  BLOCK
+}
@@ -0,0 +1,37 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.enums;
+
+/**
+ * Polling modes define how a {@link dev.lukasl.jwinkey.observables.KeyStateObservable} reads the key states of its
+ * registered keys.
+ */
+public enum PollingMode {
+  /**
+   * Queries the state of every registered key separately, one native call per key and scan. Keys which have been
+   * pressed and released between two scans are reported as a {@link KeyState#PRESSED} and {@link KeyState#RELEASED}
+   * pair, if the source reports such taps.
+   */
+  PER_KEY,
+
+  /**
+   * Reads the state of all 256 virtual keys with a single bulk call per scan and compares it against the previously
+   * seen states. The bulk call does not report whether a key has been pressed since the previous scan, so taps which
+   * start and end between two scans are not seen, and the polling period has to be shorter than the shortest tap.
+   */
+  SNAPSHOT
+}
@@ -20,11 +20,10 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.ToString;
 
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Getter
 @ToString
@@ -229,6 +228,30 @@ public enum VirtualKey {
   private final int virtualKeyCode;
   private final String description;
 
+  /**
+   * Maps every virtual key code to its {@link VirtualKey}. If several keys share a code, like {@link #VK_KANA},
+   * {@link #VK_HANGUEL} and {@link #VK_HANGUL}, the one declared first wins.
+   */
+  private static final VirtualKey[] BY_CODE = new VirtualKey[256];
+
+  static {
+    for (VirtualKey virtualKey : values()) {
+      if (BY_CODE[virtualKey.virtualKeyCode] == null) {
+        BY_CODE[virtualKey.virtualKeyCode] = virtualKey;
+      }
+    }
+  }
+
+  /**
+   * Looks up the {@link VirtualKey} of the passed virtual key code without allocating.
+   *
+   * @param virtualKeyCode the virtual key code to be looked up
+   * @return the found {@link VirtualKey} or null if there is none
+   */
+  public static VirtualKey lookup(int virtualKeyCode) {
+    return virtualKeyCode >= 0 && virtualKeyCode < BY_CODE.length ? BY_CODE[virtualKeyCode] : null;
+  }
+
   /**
    * Searches the {@link VirtualKey} for the passed virtual key code.
    *
@@ -236,20 +259,28 @@ public enum VirtualKey {
    * @return the found {@link VirtualKey}
    */
   public static Optional<VirtualKey> fromCode(int virtualKeyCode) {
-    return Arrays.stream(values())
-      .filter((virtualKey) -> virtualKey.getVirtualKeyCode() == virtualKeyCode)
-      .findFirst();
+    return Optional.ofNullable(lookup(virtualKeyCode));
   }
 
   public static Set<VirtualKey> fromCodes(Collection<Integer> virtualKeyCodes) {
-    return virtualKeyCodes.stream()
-      .map(VirtualKey::fromCode)
-      .filter(Optional::isPresent)
-      .map(Optional::get)
-      .collect(Collectors.toSet());
+    Set<VirtualKey> virtualKeys = EnumSet.noneOf(VirtualKey.class);
+    for (int virtualKeyCode : virtualKeyCodes) {
+      VirtualKey virtualKey = lookup(virtualKeyCode);
+      if (virtualKey != null) {
+        virtualKeys.add(virtualKey);
+      }
+    }
+    return virtualKeys;
   }
 
-  public static Set<VirtualKey> fromCodes(Integer... virtualKeyCodes) {
-    return fromCodes(Arrays.asList(virtualKeyCodes));
+  public static Set<VirtualKey> fromCodes(int... virtualKeyCodes) {
+    Set<VirtualKey> virtualKeys = EnumSet.noneOf(VirtualKey.class);
+    for (int virtualKeyCode : virtualKeyCodes) {
+      VirtualKey virtualKey = lookup(virtualKeyCode);
+      if (virtualKey != null) {
+        virtualKeys.add(virtualKey);
+      }
+    }
+    return virtualKeys;
   }
 }
@@ -0,0 +1,33 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.handlers;
+
+import dev.lukasl.jwinkey.components.Hotkey;
+
+/**
+ * A handler receives the hotkeys matched by a {@link dev.lukasl.jwinkey.matchers.HotkeyMatcher}.
+ */
+@FunctionalInterface
+public interface HotkeyHandler {
+  /**
+   * Is called for every activation of a hotkey.
+   *
+   * @param hotkey   the activated hotkey
+   * @param nanoTime the time of the key event which activated the hotkey
+   */
+  void onHotkey(Hotkey hotkey, long nanoTime);
+}
@@ -0,0 +1,69 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.handlers;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+
+/**
+ * A handler receives key events in primitive form, without allocating an event object per transition.
+ * <p>Handlers are called on the polling thread and should return quickly, as they delay the next scan.
+ */
+@FunctionalInterface
+public interface KeyEventHandler {
+  /**
+   * Is called for every transition of a registered key.
+   *
+   * @param virtualKeyCode the virtual key code of the key
+   * @param keyState       the new state of the key
+   * @param nanoTime       the {@link System#nanoTime()} of the scan which detected the transition
+   */
+  void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime);
+
+  /**
+   * Is called for every transition and derived state of a registered key, together with the time the key has been
+   * held if it has been released or is still held. The default implementation ignores the press duration.
+   *
+   * @param virtualKeyCode     the virtual key code of the key
+   * @param keyState           the new state of the key
+   * @param nanoTime           the {@link System#nanoTime()} of the scan which detected the transition
+   * @param pressDurationNanos the time in nanoseconds the key has been held, or 0 for presses and double taps
+   */
+  default void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+    this.onEvent(virtualKeyCode, keyState, nanoTime);
+  }
+
+  /**
+   * Is called after every scan in which the handler has received at least one event, so handlers can process the
+   * events of a scan together. Handlers subscribed to a view of single keys are not called.
+   *
+   * @param tick     the number of scans performed by the poller before
+   * @param nanoTime the {@link System#nanoTime()} of the scan
+   */
+  default void onTick(long tick, long nanoTime) {
+  }
+
+  /**
+   * Is called once if polling has failed. No more events are passed to the handler afterwards.
+   * <p>The default implementation passes the error to {@link RxJavaPlugins#onError(Throwable)}.
+   *
+   * @param throwable the cause of the failure
+   */
+  default void onError(Throwable throwable) {
+    RxJavaPlugins.onError(throwable);
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.handlers;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+
+/**
+ * A listener receives the raw measurements of a {@link dev.lukasl.jwinkey.observables.KeyStatePoller}.
+ * <p>Listeners are called on the polling thread or, for buffered subscriptions, on the draining worker. They must
+ * return quickly and must not block. Pollers without a listener skip all measurements.
+ */
+public interface MetricsListener {
+  /**
+   * Is called after every scan.
+   *
+   * @param durationNanos the time the scan took, including the dispatch of all transitions
+   * @param jitterNanos   the time the scan started after its deadline, always 0 for manual pollers
+   * @param nativeCalls   the number of calls into the key state source
+   */
+  default void onTick(long durationNanos, long jitterNanos, int nativeCalls) {
+  }
+
+  /**
+   * Is called for every transition of a key registered by any attached observable.
+   *
+   * @param virtualKeyCode the virtual key code of the key
+   * @param keyState       the new state of the key
+   */
+  default void onTransition(int virtualKeyCode, KeyState keyState) {
+  }
+
+  /**
+   * Is called whenever a buffered subscription delivers an event to its subscriber.
+   *
+   * @param latencyNanos the time between the scan which detected the transition and its delivery
+   */
+  default void onDelivered(long latencyNanos) {
+  }
+
+  /**
+   * Is called whenever a buffered subscription drops or coalesces an event.
+   */
+  default void onDropped() {
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.handlers;
+
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+
+/**
+ * A handler receives cursor movements in primitive form, without allocating an event object per movement.
+ * <p>Handlers are called on the polling thread and should return quickly, as they delay the next scan.
+ */
+@FunctionalInterface
+public interface MouseMotionHandler {
+  /**
+   * Is called for every movement which passes the motion policy of the observable. The delta is relative to the
+   * position of the previous movement passed to the handler, so movements held back by the policy are included.
+   *
+   * @param x        the x coordinate of the cursor in screen coordinates
+   * @param y        the y coordinate of the cursor in screen coordinates
+   * @param deltaX   the horizontal distance since the previous movement
+   * @param deltaY   the vertical distance since the previous movement
+   * @param nanoTime the {@link System#nanoTime()} of the scan which detected the movement
+   */
+  void onMotion(int x, int y, int deltaX, int deltaY, long nanoTime);
+
+  /**
+   * Is called once if polling has failed. No more movements are passed to the handler afterwards.
+   * <p>The default implementation passes the error to {@link RxJavaPlugins#onError(Throwable)}.
+   *
+   * @param throwable the cause of the failure
+   */
+  default void onError(Throwable throwable) {
+    RxJavaPlugins.onError(throwable);
+  }
+}
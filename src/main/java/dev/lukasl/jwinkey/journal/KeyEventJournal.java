@@ -0,0 +1,277 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.journal;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A journal of key events written by a {@link KeyEventRecorder}, which can be replayed into a {@link KeyEventHandler}
+ * or, using {@link dev.lukasl.jwinkey.sources.JournalKeyStateSource}, into observables.
+ * <p>A journal is a directory of segment files, which are named by their sequence number and memory-mapped while
+ * being read. Every segment starts with a header of {@value #HEADER_SIZE} bytes, consisting of the magic number, the
+ * format version, the {@link System#nanoTime()} the segment has been started at and the same instant as nanoseconds
+ * since the epoch. It is followed by one record per event: a byte holding the key state ordinal plus one, a byte
+ * holding the virtual key code and the time since the previous event as an unsigned LEB128 varint. A zero byte or the
+ * end of the file marks the end of a segment.
+ * <p>Every recorder appending to a journal starts a new session, whose {@link System#nanoTime()} values have an origin
+ * of their own. Sessions are told apart by the offset between both times of their headers, and the times of every
+ * session are rebased so it starts right after the last event of the previous one.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class KeyEventJournal {
+  static final int MAGIC = 0x4A574B4A;
+  static final byte VERSION = 2;
+  static final int HEADER_SIZE = 21;
+  static final int MAX_RECORD_SIZE = 2 + 10;
+  static final String SEGMENT_SUFFIX = ".jwk";
+
+  private static final KeyState[] KEY_STATES = KeyState.values();
+
+  @Getter
+  private final Path directory;
+
+  @Getter
+  private final List<Path> segments;
+
+  /**
+   * Opens a new cursor positioned before the first event of this journal.
+   *
+   * @return the cursor
+   */
+  public Cursor cursor() {
+    return new Cursor(this.segments);
+  }
+
+  /**
+   * Replays all events of this journal into the passed handler as fast as possible. Every event carries its time as
+   * returned by {@link Cursor#getNanoTime()} and, for releases, the time since the previous press of the key in the
+   * same session.
+   *
+   * @param handler the handler receiving the events
+   * @return the number of replayed events
+   */
+  public long replay(@NonNull KeyEventHandler handler) {
+    return this.replay(handler, Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Replays all events of this journal into the passed handler, keeping the recorded intervals divided by the passed
+   * speed. The calling thread is parked between events.
+   *
+   * @param handler the handler receiving the events
+   * @param speed   the speed factor, 1 for real time or {@link Double#POSITIVE_INFINITY} for as fast as possible
+   * @return the number of replayed events
+   */
+  public long replay(@NonNull KeyEventHandler handler, double speed) {
+    if (!(speed > 0)) {
+      throw new IllegalArgumentException("speed must be positive");
+    }
+
+    long[] pressedAt = new long[256];
+    boolean[] pressed = new boolean[256];
+    long count = 0;
+    long start = System.nanoTime();
+    long first = 0;
+    int session = 0;
+
+    Cursor cursor = this.cursor();
+    while (cursor.next()) {
+      int virtualKeyCode = cursor.getVirtualKeyCode();
+      KeyState keyState = cursor.getKeyState();
+      long nanoTime = cursor.getNanoTime();
+      if (cursor.getSession() != session) {
+        session = cursor.getSession();
+        Arrays.fill(pressed, false);
+      }
+
+      if (count == 0) {
+        first = nanoTime;
+      } else if (speed != Double.POSITIVE_INFINITY) {
+        parkUntil(start + (long) ((nanoTime - first) / speed));
+      }
+
+      long pressDuration = 0;
+      if (keyState == KeyState.PRESSED) {
+        pressedAt[virtualKeyCode] = nanoTime;
+      } else if (pressed[virtualKeyCode]) {
+        pressDuration = nanoTime - pressedAt[virtualKeyCode];
+      }
+      if (keyState.isTransition()) {
+        pressed[virtualKeyCode] = keyState == KeyState.PRESSED;
+      }
+
+      handler.onEvent(virtualKeyCode, keyState, nanoTime, pressDuration);
+      count++;
+    }
+    return count;
+  }
+
+  private static void parkUntil(long deadline) {
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+      LockSupport.parkNanos(remaining);
+    }
+  }
+
+  /**
+   * Opens the journal in the passed directory.
+   *
+   * @param directory the directory written by a {@link KeyEventRecorder}
+   * @return the journal
+   * @throws IOException if the directory could not be listed
+   */
+  public static KeyEventJournal open(@NonNull Path directory) throws IOException {
+    return new KeyEventJournal(directory, segments(directory));
+  }
+
+  static List<Path> segments(Path directory) throws IOException {
+    List<Path> segments = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      stream.forEach(segments::add);
+    }
+    Collections.sort(segments);
+    return Collections.unmodifiableList(segments);
+  }
+
+  static String segmentName(long sequence) {
+    return String.format("%016d%s", sequence, SEGMENT_SUFFIX);
+  }
+
+  /**
+   * A forward-only cursor over the events of a journal, which decodes one event per {@link #next()} call without
+   * allocating.
+   */
+  public static final class Cursor {
+    private final List<Path> segments;
+    private int segment;
+    private ByteBuffer buffer;
+    private long epochOffset;
+    private long shift;
+
+    @Getter
+    private int virtualKeyCode;
+
+    @Getter
+    private KeyState keyState;
+
+    /**
+     * The {@link System#nanoTime()} the current event has been recorded at, rebased onto the timeline of the first
+     * session of the journal.
+     */
+    @Getter
+    private long nanoTime;
+
+    /**
+     * The number of the session the current event has been recorded in, starting at 0.
+     */
+    @Getter
+    private int session = -1;
+
+    private Cursor(List<Path> segments) {
+      this.segments = segments;
+    }
+
+    /**
+     * Returns the wall-clock time the current event has been recorded at.
+     *
+     * @return the time in nanoseconds since the epoch
+     */
+    public long getEpochNanos() {
+      return this.nanoTime - this.shift + this.epochOffset;
+    }
+
+    /**
+     * Moves to the next event.
+     *
+     * @return false if there are no more events
+     * @throws UncheckedIOException if a segment could not be read
+     */
+    public boolean next() {
+      while (true) {
+        if (this.buffer != null && this.buffer.hasRemaining()) {
+          int state = this.buffer.get() & 0xFF;
+          if (state != 0) {
+            this.keyState = KEY_STATES[state - 1];
+            this.virtualKeyCode = this.buffer.get() & 0xFF;
+            this.nanoTime += readVarLong(this.buffer);
+            return true;
+          }
+        }
+
+        if (this.segment >= this.segments.size()) {
+          this.buffer = null;
+          return false;
+        }
+        this.buffer = this.map(this.segments.get(this.segment++));
+      }
+    }
+
+    private ByteBuffer map(Path path) {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+          throw new IOException(path + " is not a journal segment");
+        }
+        if (buffer.get() != VERSION) {
+          throw new IOException(path + " has an unsupported version");
+        }
+        long base = buffer.getLong();
+        long epochOffset = buffer.getLong() - base;
+        if (this.session < 0 || epochOffset != this.epochOffset) {
+          this.shift = this.session < 0 ? 0 : this.nanoTime - base;
+          this.epochOffset = epochOffset;
+          this.session++;
+        }
+        this.nanoTime = base + this.shift;
+        return buffer;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+      long value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = buffer.get();
+        value |= (long) (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,229 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.journal;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link KeyEventHandler} which appends every event to a {@link KeyEventJournal}.
+ * <p>Events are written into a memory-mapped segment of a fixed size. Once a segment is full, the next one is created,
+ * so a recording never has to be copied or resized. Subscribe the recorder using
+ * {@link dev.lukasl.jwinkey.observables.KeyStateObservable#handle(KeyEventHandler)} and close it once the recording
+ * is finished, which truncates the last segment to the events it holds.
+ */
+public class KeyEventRecorder implements KeyEventHandler, Closeable {
+  public static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+
+  @Getter
+  private final Path directory;
+
+  @Getter
+  private final int segmentSize;
+
+  /**
+   * The offset of the wall-clock time to {@link System#nanoTime()}, fixed for the lifetime of the recorder so all
+   * segments of its session share the same offset.
+   */
+  private final long epochOffset;
+
+  private long sequence;
+  private Path path;
+  private MappedByteBuffer buffer;
+  private long previous;
+  private boolean closed;
+
+  /**
+   * The number of events recorded.
+   */
+  @Getter
+  private long count;
+
+  protected KeyEventRecorder(Path directory, int segmentSize, long sequence, long epochOffset) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.sequence = sequence;
+    this.epochOffset = epochOffset;
+  }
+
+  @Override
+  public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+    this.append(virtualKeyCode, keyState, nanoTime);
+  }
+
+  /**
+   * Appends an event. Events are expected in chronological order; a time before the previous event is recorded as
+   * the time of the previous event.
+   *
+   * @param virtualKeyCode the virtual key code of the key
+   * @param keyState       the new state of the key
+   * @param nanoTime       the time of the event
+   * @throws UncheckedIOException if a new segment could not be created
+   */
+  public synchronized void append(int virtualKeyCode, KeyState keyState, long nanoTime) {
+    if (this.closed) {
+      return;
+    }
+    if (this.buffer == null || this.buffer.remaining() < KeyEventJournal.MAX_RECORD_SIZE) {
+      this.roll(nanoTime);
+    }
+
+    long delta = Math.max(0, nanoTime - this.previous);
+    this.previous += delta;
+
+    this.buffer.put((byte) (keyState.ordinal() + 1));
+    this.buffer.put((byte) virtualKeyCode);
+    while ((delta & ~0x7FL) != 0) {
+      this.buffer.put((byte) (delta | 0x80));
+      delta >>>= 7;
+    }
+    this.buffer.put((byte) delta);
+    this.count++;
+  }
+
+  private void roll(long nanoTime) {
+    if (this.buffer != null) {
+      this.buffer.force();
+    }
+
+    this.path = this.directory.resolve(KeyEventJournal.segmentName(this.sequence++));
+    try (FileChannel channel = FileChannel.open(
+      this.path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE
+    )) {
+      this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+    } catch (IOException e) {
+      this.closed = true;
+      throw new UncheckedIOException(e);
+    }
+
+    this.buffer.putInt(KeyEventJournal.MAGIC);
+    this.buffer.put(KeyEventJournal.VERSION);
+    this.buffer.putLong(nanoTime);
+    this.buffer.putLong(nanoTime + this.epochOffset);
+    this.previous = nanoTime;
+  }
+
+  /**
+   * Writes all recorded events to the storage device.
+   */
+  public synchronized void flush() {
+    if (this.buffer != null) {
+      this.buffer.force();
+    }
+  }
+
+  /**
+   * Finishes the recording and truncates the current segment to the events it holds. Further events are ignored.
+   *
+   * @throws UncheckedIOException if the segment could not be truncated
+   */
+  @Override
+  public synchronized void close() {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    if (this.buffer == null) {
+      return;
+    }
+
+    MappedByteBuffer buffer = this.buffer;
+    this.buffer = null;
+    buffer.force();
+    int size = buffer.position();
+    unmap(buffer);
+    try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.WRITE)) {
+      channel.truncate(size);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Releases the mapping of the passed buffer, which must not be accessed afterwards. Windows refuses to truncate a
+   * file which is still mapped, and mappings are otherwise only released once their buffer is garbage collected.
+   * Unmapping is best effort and uses {@code Unsafe.invokeCleaner} on Java 9 and later or the cleaner of the buffer
+   * on Java 8.
+   *
+   * @param buffer the buffer to be unmapped
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field field = unsafeClass.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafeClass.getMethod("invokeCleaner", ByteBuffer.class).invoke(field.get(null), buffer);
+      return;
+    } catch (ReflectiveOperationException | RuntimeException ignored) {
+    }
+
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+      }
+    } catch (ReflectiveOperationException | RuntimeException ignored) {
+    }
+  }
+
+  /**
+   * Opens a recorder appending to the journal in the passed directory, which is created if necessary. Existing
+   * segments are kept, new ones are created after them.
+   *
+   * @param directory   the directory of the journal
+   * @param segmentSize the size of every segment in bytes
+   * @return the recorder
+   * @throws IOException if the directory could not be created or listed
+   */
+  public static KeyEventRecorder open(@NonNull Path directory, int segmentSize) throws IOException {
+    if (segmentSize < KeyEventJournal.HEADER_SIZE + KeyEventJournal.MAX_RECORD_SIZE) {
+      throw new IllegalArgumentException("segment size is too small");
+    }
+
+    Files.createDirectories(directory);
+    List<Path> segments = KeyEventJournal.segments(directory);
+    long sequence = 0;
+    if (!segments.isEmpty()) {
+      String name = segments.get(segments.size() - 1).getFileName().toString();
+      sequence = Long.parseLong(name.substring(0, name.length() - KeyEventJournal.SEGMENT_SUFFIX.length())) + 1;
+    }
+    long epochOffset = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()) - System.nanoTime();
+    return new KeyEventRecorder(directory, segmentSize, sequence, epochOffset);
+  }
+
+  public static KeyEventRecorder open(@NonNull Path directory) throws IOException {
+    return open(directory, DEFAULT_SEGMENT_SIZE);
+  }
+}
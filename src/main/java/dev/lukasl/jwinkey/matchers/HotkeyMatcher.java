@@ -0,0 +1,241 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.matchers;
+
+import dev.lukasl.jwinkey.components.Hotkey;
+import dev.lukasl.jwinkey.components.HotkeyEvent;
+import dev.lukasl.jwinkey.components.KeyBitSet;
+import dev.lukasl.jwinkey.components.KeySet;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.enums.Modifier;
+import dev.lukasl.jwinkey.handlers.HotkeyHandler;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import dev.lukasl.jwinkey.observables.KeyStateObservable;
+import dev.lukasl.jwinkey.observables.RoutedKeyStateObservable;
+import dev.lukasl.jwinkey.throwables.HotkeyException;
+import io.reactivex.rxjava3.core.Observable;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.*;
+
+/**
+ * A hotkey matcher compiles a set of {@link Hotkey}s into a table indexed by the trigger key and the held modifiers,
+ * so every key event is matched with a single lookup, regardless of the number of hotkeys.
+ * <p>A hotkey is activated if its trigger key is pressed while exactly its modifiers are held, or if the held
+ * modifiers change to exactly its modifiers while the trigger key is held. Unless it has the {@link Modifier#NO_REPEAT}
+ * modifier, it is activated again on every {@link KeyState#REPEATED} event of its trigger key, which the observable
+ * reports if its {@link dev.lukasl.jwinkey.components.DerivedStatePolicy} enables repetition.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class HotkeyMatcher {
+  /**
+   * The number of modifier combinations per trigger key, one bit per {@link Modifier} except
+   * {@link Modifier#NO_REPEAT}.
+   */
+  private static final int COMBINATIONS = 16;
+  private static final int MODIFIER_MASK = COMBINATIONS - 1;
+  private static final int[] MODIFIERS = new int[256];
+  private static final long[] MODIFIER_KEYS = new long[4];
+  private static final int ERROR_HOTKEY_ALREADY_REGISTERED = 1409;
+
+  static {
+    for (int virtualKeyCode = 0; virtualKeyCode < MODIFIERS.length; virtualKeyCode++) {
+      int code = virtualKeyCode;
+      Modifier.fromVirtualKeyCode(virtualKeyCode).ifPresent((modifier) -> {
+        MODIFIERS[code] = modifier.getCode();
+        MODIFIER_KEYS[code >>> 6] |= 1L << (code & 0x3F);
+      });
+    }
+  }
+
+  private final Hotkey[] table;
+  private final boolean[] repeatable;
+  private final List<Integer> virtualKeyCodes;
+
+  /**
+   * Returns the virtual key codes which have to be registered to match the hotkeys, the trigger keys as well as all
+   * modifier keys.
+   *
+   * @return the virtual key codes
+   */
+  public List<Integer> getVirtualKeyCodes() {
+    return this.virtualKeyCodes;
+  }
+
+  /**
+   * Looks up the hotkey of the passed trigger key and modifiers.
+   *
+   * @param virtualKeyCode the virtual key code of the trigger key
+   * @param modifiers      the combined modifiers, see {@link Modifier#combine(Collection)}
+   * @return the hotkey or null if there is none
+   */
+  public Hotkey lookup(int virtualKeyCode, int modifiers) {
+    return this.table[(virtualKeyCode & 0xFF) << 4 | (modifiers & MODIFIER_MASK)];
+  }
+
+  /**
+   * Creates a new {@link KeyEventHandler} which matches the key events it receives and passes activated hotkeys to the
+   * passed handler. Every returned handler tracks the held keys of its own event stream.
+   *
+   * @param handler the handler of the activated hotkeys
+   * @return the matching key event handler
+   */
+  public KeyEventHandler handler(@NonNull HotkeyHandler handler) {
+    return new MatchingKeyEventHandler(this, handler);
+  }
+
+  /**
+   * Matches the events of the required keys of the passed observable. The keys are observed through a
+   * {@link KeyStateObservable#forKeys(KeySet) view} as long as the returned observable has subscribers, so they do
+   * not have to be registered and are no longer polled once all subscribers have been disposed.
+   *
+   * @param observable the observable whose events are matched
+   * @return an {@link Observable} emitting every activated hotkey
+   */
+  public Observable<HotkeyEvent> observe(@NonNull KeyStateObservable observable) {
+    RoutedKeyStateObservable view = observable.forKeys(KeySet.of(this.virtualKeyCodes));
+    return Observable.create((emitter) -> emitter.setDisposable(view.handle(
+      this.handler((hotkey, nanoTime) -> emitter.onNext(new HotkeyEvent(hotkey, nanoTime)))
+    )));
+  }
+
+  /**
+   * Compiles the passed hotkeys.
+   *
+   * @param hotkeys the hotkeys to be matched
+   * @return the compiled matcher
+   * @throws HotkeyException if two hotkeys share the same trigger key and modifiers
+   */
+  public static HotkeyMatcher compile(@NonNull Collection<Hotkey> hotkeys) {
+    Hotkey[] table = new Hotkey[256 * COMBINATIONS];
+    boolean[] repeatable = new boolean[table.length];
+    SortedSet<Integer> virtualKeyCodes = new TreeSet<>();
+
+    for (Hotkey hotkey : hotkeys) {
+      int modifiers = Modifier.combine(hotkey.getModifiers());
+      int index = KeyBitSet.checkVirtualKeyCode(hotkey.getVirtualKeyCode()) << 4 | (modifiers & MODIFIER_MASK);
+      if (table[index] != null) {
+        throw new HotkeyException(
+          "hotkey " + hotkey.getId() + " conflicts with hotkey " + table[index].getId(),
+          ERROR_HOTKEY_ALREADY_REGISTERED
+        );
+      }
+
+      table[index] = hotkey;
+      repeatable[index] = (modifiers & Modifier.NO_REPEAT.getCode()) == 0;
+      virtualKeyCodes.add(hotkey.getVirtualKeyCode());
+    }
+
+    for (int virtualKeyCode = 0; virtualKeyCode < MODIFIERS.length; virtualKeyCode++) {
+      if (MODIFIERS[virtualKeyCode] != 0) {
+        virtualKeyCodes.add(virtualKeyCode);
+      }
+    }
+
+    return new HotkeyMatcher(table, repeatable, Collections.unmodifiableList(new ArrayList<>(virtualKeyCodes)));
+  }
+
+  public static HotkeyMatcher compile(@NonNull Hotkey... hotkeys) {
+    return compile(Arrays.asList(hotkeys));
+  }
+
+  /**
+   * Tracks the held keys of a single event stream and matches every press against the table of its matcher.
+   */
+  private static final class MatchingKeyEventHandler implements KeyEventHandler {
+    private final long[] pressed = new long[4];
+    private final HotkeyMatcher matcher;
+    private final HotkeyHandler handler;
+    private int modifiers;
+
+    private MatchingKeyEventHandler(HotkeyMatcher matcher, HotkeyHandler handler) {
+      this.matcher = matcher;
+      this.handler = handler;
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+      int index = (virtualKeyCode & 0xFF) >>> 6;
+      long bit = 1L << (virtualKeyCode & 0x3F);
+
+      int modifier = MODIFIERS[virtualKeyCode & 0xFF];
+
+      if (keyState == KeyState.RELEASED) {
+        this.pressed[index] &= ~bit;
+        if (modifier != 0) {
+          this.modifiers = this.heldModifiers();
+        }
+        return;
+      }
+
+      if (keyState == KeyState.REPEATED) {
+        if ((this.pressed[index] & bit) != 0) {
+          this.activate(virtualKeyCode, this.modifiers & ~modifier, true, nanoTime);
+        }
+        return;
+      }
+
+      if (keyState != KeyState.PRESSED || (this.pressed[index] & bit) != 0) {
+        return;
+      }
+      this.pressed[index] |= bit;
+
+      if (modifier == 0) {
+        this.activate(virtualKeyCode, this.modifiers, false, nanoTime);
+        return;
+      }
+
+      this.activate(virtualKeyCode, this.modifiers & ~modifier, false, nanoTime);
+      int previous = this.modifiers;
+      this.modifiers = this.heldModifiers();
+      if (this.modifiers == previous) {
+        return;
+      }
+
+      for (int i = 0; i < this.pressed.length; i++) {
+        long triggers = this.pressed[i] & ~MODIFIER_KEYS[i];
+        while (triggers != 0) {
+          int trigger = (i << 6) | Long.numberOfTrailingZeros(triggers);
+          triggers &= triggers - 1;
+          this.activate(trigger, this.modifiers, false, nanoTime);
+        }
+      }
+    }
+
+    private void activate(int virtualKeyCode, int modifiers, boolean repeat, long nanoTime) {
+      int index = (virtualKeyCode & 0xFF) << 4 | (modifiers & MODIFIER_MASK);
+      Hotkey hotkey = this.matcher.table[index];
+      if (hotkey != null && (!repeat || this.matcher.repeatable[index])) {
+        this.handler.onHotkey(hotkey, nanoTime);
+      }
+    }
+
+    private int heldModifiers() {
+      int modifiers = 0;
+      for (int i = 0; i < this.pressed.length; i++) {
+        long held = this.pressed[i] & MODIFIER_KEYS[i];
+        while (held != 0) {
+          modifiers |= MODIFIERS[(i << 6) | Long.numberOfTrailingZeros(held)];
+          held &= held - 1;
+        }
+      }
+      return modifiers;
+    }
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.matchers;
+
+import dev.lukasl.jwinkey.components.KeyBitSet;
+import dev.lukasl.jwinkey.components.KeySequence;
+import dev.lukasl.jwinkey.components.KeySequenceEvent;
+import dev.lukasl.jwinkey.components.KeySet;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import dev.lukasl.jwinkey.handlers.KeySequenceHandler;
+import dev.lukasl.jwinkey.observables.KeyStateObservable;
+import dev.lukasl.jwinkey.observables.RoutedKeyStateObservable;
+import io.reactivex.rxjava3.core.Observable;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import java.util.*;
+
+/**
+ * A key sequence matcher compiles a set of {@link KeySequence}s into a single Aho-Corasick automaton over key presses,
+ * so the cost of every key press is independent of the number of sequences.
+ * <p>Every state of the automaton has a timeout, the longest timeout of all sequences that can still be completed from
+ * it. A press arriving after that timeout restarts matching from the initial state. The key presses completing a
+ * sequence are consumed, so they do not contribute to further matches.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class KeySequenceMatcher {
+  private static final int ROOT = 0;
+  private static final int OTHER = 0;
+
+  /**
+   * Maps every virtual key code to its column in the transition table. Keys which are not part of any sequence share
+   * the column {@link #OTHER}.
+   */
+  private final int[] columns;
+  private final int width;
+
+  /**
+   * The transition table, {@code width} entries per state.
+   */
+  private final int[] transitions;
+  private final long[] timeouts;
+  private final KeySequence[][] outputs;
+  private final int maxLength;
+  private final List<Integer> virtualKeyCodes;
+
+  public int getStateCount() {
+    return this.timeouts.length;
+  }
+
+  /**
+   * Returns the virtual key codes which have to be registered to match the sequences.
+   *
+   * @return the virtual key codes
+   */
+  public List<Integer> getVirtualKeyCodes() {
+    return this.virtualKeyCodes;
+  }
+
+  /**
+   * Creates a new {@link KeyEventHandler} which matches the key presses it receives and passes completed sequences to
+   * the passed handler. Every returned handler tracks the automaton state of its own event stream.
+   *
+   * @param handler the handler of the completed sequences
+   * @return the matching key event handler
+   */
+  public KeyEventHandler handler(@NonNull KeySequenceHandler handler) {
+    return new MatchingKeyEventHandler(this, handler);
+  }
+
+  /**
+   * Matches the events of the required keys of the passed observable, which are observed through a view as long as
+   * the returned observable has subscribers, see {@link HotkeyMatcher#observe(KeyStateObservable)}.
+   *
+   * @param observable the observable whose events are matched
+   * @return an {@link Observable} emitting every completed sequence
+   */
+  public Observable<KeySequenceEvent> observe(@NonNull KeyStateObservable observable) {
+    RoutedKeyStateObservable view = observable.forKeys(KeySet.of(this.virtualKeyCodes));
+    return Observable.create((emitter) -> emitter.setDisposable(view.handle(
+      this.handler((sequence, nanoTime) -> emitter.onNext(new KeySequenceEvent(sequence, nanoTime)))
+    )));
+  }
+
+  /**
+   * Compiles the passed sequences.
+   *
+   * @param sequences the sequences to be matched
+   * @return the compiled matcher
+   */
+  public static KeySequenceMatcher compile(@NonNull Collection<KeySequence> sequences) {
+    int[] columns = new int[256];
+    SortedSet<Integer> virtualKeyCodes = new TreeSet<>();
+    int maxLength = 1;
+    for (KeySequence sequence : sequences) {
+      for (int virtualKeyCode : sequence.getVirtualKeyCodes()) {
+        virtualKeyCodes.add(KeyBitSet.checkVirtualKeyCode(virtualKeyCode));
+      }
+      maxLength = Math.max(maxLength, sequence.getVirtualKeyCodes().size());
+    }
+
+    int width = 1;
+    for (int virtualKeyCode : virtualKeyCodes) {
+      columns[virtualKeyCode] = width++;
+    }
+
+    // build the trie of all sequences
+    List<int[]> children = new ArrayList<>();
+    List<Long> timeouts = new ArrayList<>();
+    List<List<KeySequence>> outputs = new ArrayList<>();
+    children.add(new int[width]);
+    timeouts.add(0L);
+    outputs.add(new ArrayList<>());
+
+    for (KeySequence sequence : sequences) {
+      long timeout = sequence.getTimeout().toNanos();
+      int state = ROOT;
+      for (int virtualKeyCode : sequence.getVirtualKeyCodes()) {
+        int column = columns[virtualKeyCode & 0xFF];
+        if (children.get(state)[column] == 0) {
+          children.get(state)[column] = children.size();
+          children.add(new int[width]);
+          timeouts.add(0L);
+          outputs.add(new ArrayList<>());
+        }
+        state = children.get(state)[column];
+        timeouts.set(state, Math.max(timeouts.get(state), timeout));
+      }
+      outputs.get(state).add(sequence);
+    }
+
+    // complete the trie to an automaton by following the failure links in breadth-first order
+    int states = children.size();
+    int[] transitions = new int[states * width];
+    int[] failures = new int[states];
+    long[] stateTimeouts = new long[states];
+    KeySequence[][] stateOutputs = new KeySequence[states][];
+    stateOutputs[ROOT] = new KeySequence[0];
+
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.add(ROOT);
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      for (int column = 0; column < width; column++) {
+        int child = column == OTHER ? 0 : children.get(state)[column];
+        if (child == 0) {
+          transitions[state * width + column] = state == ROOT || column == OTHER
+            ? ROOT
+            : transitions[failures[state] * width + column];
+          continue;
+        }
+
+        int failure = state == ROOT ? ROOT : transitions[failures[state] * width + column];
+        failures[child] = failure;
+        transitions[state * width + column] = child;
+        stateTimeouts[child] = Math.max(timeouts.get(child), stateTimeouts[failure]);
+
+        List<KeySequence> output = new ArrayList<>(outputs.get(child));
+        output.addAll(Arrays.asList(stateOutputs[failure]));
+        stateOutputs[child] = output.toArray(new KeySequence[0]);
+        queue.add(child);
+      }
+    }
+
+    return new KeySequenceMatcher(
+      columns,
+      width,
+      transitions,
+      stateTimeouts,
+      stateOutputs,
+      maxLength,
+      Collections.unmodifiableList(new ArrayList<>(virtualKeyCodes))
+    );
+  }
+
+  public static KeySequenceMatcher compile(@NonNull KeySequence... sequences) {
+    return compile(Arrays.asList(sequences));
+  }
+
+  /**
+   * Runs the automaton over the key presses of a single event stream. The times of the latest presses are kept in a
+   * ring, so the timeout of every sequence can be verified once it is completed.
+   */
+  private static final class MatchingKeyEventHandler implements KeyEventHandler {
+    private final KeySequenceMatcher matcher;
+    private final KeySequenceHandler handler;
+    private final long[] times;
+    private int state = ROOT;
+    private long presses;
+
+    private MatchingKeyEventHandler(KeySequenceMatcher matcher, KeySequenceHandler handler) {
+      this.matcher = matcher;
+      this.handler = handler;
+      this.times = new long[matcher.maxLength];
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+      if (keyState != KeyState.PRESSED) {
+        return;
+      }
+
+      KeySequenceMatcher matcher = this.matcher;
+      if (this.state != ROOT && nanoTime - this.time(0) > matcher.timeouts[this.state]) {
+        this.state = ROOT;
+      }
+
+      this.times[(int) (this.presses++ % this.times.length)] = nanoTime;
+      this.state = matcher.transitions[this.state * matcher.width + matcher.columns[virtualKeyCode & 0xFF]];
+
+      boolean matched = false;
+      for (KeySequence sequence : matcher.outputs[this.state]) {
+        if (this.isInTime(sequence)) {
+          this.handler.onSequence(sequence, nanoTime);
+          matched = true;
+        }
+      }
+
+      if (matched) {
+        this.state = ROOT;
+      }
+    }
+
+    private boolean isInTime(KeySequence sequence) {
+      long timeout = sequence.getTimeout().toNanos();
+      for (int i = 1; i < sequence.getVirtualKeyCodes().size(); i++) {
+        if (this.time(i - 1) - this.time(i) > timeout) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns the time of a previous key press.
+     *
+     * @param age the number of presses since the press, {@code 0} for the latest one
+     * @return the time of the press
+     */
+    private long time(int age) {
+      return this.times[(int) ((this.presses - 1 - age) % this.times.length)];
+    }
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.metrics;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link KeyEventHandler} aggregating the usage of every key: its number of presses, the distribution of the time
+ * it has been held and its press rate within a sliding window.
+ * <p>All figures are kept in primitive arrays indexed by virtual key code, whose size only depends on the window, so
+ * the memory of an aggregator stays constant however long it runs. Subscribe it using
+ * {@link dev.lukasl.jwinkey.observables.KeyStateObservable#handle(KeyEventHandler)} and read it using
+ * {@link #snapshot()}.
+ */
+public class KeyUsageAggregator implements KeyEventHandler {
+  static final int KEYS = 256;
+
+  /**
+   * The number of dwell time buckets. Bucket {@code i} counts the presses held for {@code 2^i} to {@code 2^(i+1)}
+   * microseconds, the first and last bucket also count all shorter and longer ones.
+   */
+  static final int DWELL_BUCKETS = 32;
+
+  private final long[] pressCounts = new long[KEYS];
+  private final long[] dwellTotals = new long[KEYS];
+  private final long[] dwellMaxima = new long[KEYS];
+  private final long[] dwellHistograms = new long[KEYS * DWELL_BUCKETS];
+
+  /**
+   * The presses per key and window slot, and the slot epoch every column of slots currently counts.
+   */
+  private final int[] slotCounts;
+  private final long[] slotEpochs;
+
+  @Getter
+  private final long slotNanos;
+
+  @Getter
+  private final int slots;
+
+  private long startNanos = System.nanoTime();
+
+  protected KeyUsageAggregator(long slotNanos, int slots) {
+    if (slotNanos <= 0 || slots <= 0) {
+      throw new IllegalArgumentException("slot duration and number of slots must be positive");
+    }
+    this.slotNanos = slotNanos;
+    this.slots = slots;
+    this.slotCounts = new int[KEYS * slots];
+    this.slotEpochs = new long[slots];
+    Arrays.fill(this.slotEpochs, Long.MIN_VALUE);
+  }
+
+  @Override
+  public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+    this.onEvent(virtualKeyCode, keyState, nanoTime, 0);
+  }
+
+  @Override
+  public synchronized void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+    virtualKeyCode &= 0xFF;
+
+    if (keyState == KeyState.PRESSED) {
+      this.pressCounts[virtualKeyCode]++;
+      this.slotCounts[this.slot(nanoTime - this.startNanos) * KEYS + virtualKeyCode]++;
+    } else if (keyState == KeyState.RELEASED) {
+      this.dwellTotals[virtualKeyCode] += pressDurationNanos;
+      this.dwellMaxima[virtualKeyCode] = Math.max(this.dwellMaxima[virtualKeyCode], pressDurationNanos);
+      this.dwellHistograms[virtualKeyCode * DWELL_BUCKETS + dwellBucket(pressDurationNanos)]++;
+    }
+  }
+
+  /**
+   * Returns the slot of the passed time, clearing its counts first if it has counted an earlier epoch.
+   *
+   * @param elapsedNanos the time since the start of the aggregation
+   * @return the index of the slot
+   */
+  private int slot(long elapsedNanos) {
+    long epoch = Math.max(0, elapsedNanos) / this.slotNanos;
+    int slot = (int) (epoch % this.slots);
+    if (this.slotEpochs[slot] != epoch) {
+      Arrays.fill(this.slotCounts, slot * KEYS, (slot + 1) * KEYS, 0);
+      this.slotEpochs[slot] = epoch;
+    }
+    return slot;
+  }
+
+  /**
+   * Returns a copy of the aggregated usage.
+   *
+   * @return the snapshot
+   */
+  public KeyUsageSnapshot snapshot() {
+    return this.snapshot(System.nanoTime());
+  }
+
+  synchronized KeyUsageSnapshot snapshot(long nanoTime) {
+    long elapsedNanos = Math.max(0, nanoTime - this.startNanos);
+    long epoch = elapsedNanos / this.slotNanos;
+
+    long[] windowCounts = new long[KEYS];
+    for (int slot = 0; slot < this.slots; slot++) {
+      if (this.slotEpochs[slot] > epoch - this.slots && this.slotEpochs[slot] <= epoch) {
+        for (int virtualKeyCode = 0; virtualKeyCode < KEYS; virtualKeyCode++) {
+          windowCounts[virtualKeyCode] += this.slotCounts[slot * KEYS + virtualKeyCode];
+        }
+      }
+    }
+
+    // the window sums the slots - 1 completed slots and the part of the current slot elapsed so far
+    long windowNanos = Math.min(elapsedNanos, (this.slots - 1) * this.slotNanos + elapsedNanos % this.slotNanos);
+    return new KeyUsageSnapshot(
+      this.startNanos,
+      nanoTime,
+      windowNanos,
+      this.pressCounts.clone(),
+      this.dwellTotals.clone(),
+      this.dwellMaxima.clone(),
+      this.dwellHistograms.clone(),
+      windowCounts
+    );
+  }
+
+  /**
+   * Clears all aggregated figures and restarts the aggregation.
+   */
+  public synchronized void reset() {
+    Arrays.fill(this.pressCounts, 0);
+    Arrays.fill(this.dwellTotals, 0);
+    Arrays.fill(this.dwellMaxima, 0);
+    Arrays.fill(this.dwellHistograms, 0);
+    Arrays.fill(this.slotCounts, 0);
+    Arrays.fill(this.slotEpochs, Long.MIN_VALUE);
+    this.startNanos = System.nanoTime();
+  }
+
+  /**
+   * Returns a copy of the aggregated usage and restarts the aggregation, so that no event is lost between both.
+   *
+   * @return the snapshot
+   */
+  public synchronized KeyUsageSnapshot snapshotAndReset() {
+    KeyUsageSnapshot snapshot = this.snapshot();
+    this.reset();
+    return snapshot;
+  }
+
+  static int dwellBucket(long durationNanos) {
+    long micros = durationNanos / 1_000;
+    return micros <= 1 ? 0 : Math.min(DWELL_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+  }
+
+  /**
+   * Creates an aggregator whose press rates cover the passed window, which is divided into the passed number of slots.
+   *
+   * @param window the duration of the window
+   * @param slots  the number of slots, which defines the granularity of the window
+   * @param unit   the unit of the window
+   * @return the aggregator
+   */
+  public static KeyUsageAggregator create(long window, int slots, @NonNull TimeUnit unit) {
+    if (slots <= 0) {
+      throw new IllegalArgumentException("number of slots must be positive");
+    }
+    return new KeyUsageAggregator(unit.toNanos(window) / slots, slots);
+  }
+
+  /**
+   * Creates an aggregator whose press rates cover the last minute, with a granularity of one second.
+   *
+   * @return the aggregator
+   */
+  public static KeyUsageAggregator create() {
+    return create(60, 60, TimeUnit.SECONDS);
+  }
+}
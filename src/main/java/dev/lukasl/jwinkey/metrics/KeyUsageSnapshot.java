@@ -0,0 +1,152 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.metrics;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable copy of the figures of a {@link KeyUsageAggregator}.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class KeyUsageSnapshot {
+  /**
+   * The {@link System#nanoTime()} the aggregation has been started or reset at.
+   */
+  @Getter
+  private final long startNanos;
+
+  /**
+   * The {@link System#nanoTime()} this snapshot has been taken at.
+   */
+  @Getter
+  private final long nanoTime;
+
+  /**
+   * The duration the press rates have been measured over.
+   */
+  @Getter
+  private final long windowNanos;
+
+  private final long[] pressCounts;
+  private final long[] dwellTotals;
+  private final long[] dwellMaxima;
+  private final long[] dwellHistograms;
+  private final long[] windowCounts;
+
+  public long getPressCount(int virtualKeyCode) {
+    return this.pressCounts[virtualKeyCode & 0xFF];
+  }
+
+  public long getPressCount() {
+    long count = 0;
+    for (long pressCount : this.pressCounts) {
+      count += pressCount;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the number of completed presses of the passed key, which have been held for a known duration.
+   *
+   * @param virtualKeyCode the virtual key code of the key
+   * @return the number of releases
+   */
+  public long getReleaseCount(int virtualKeyCode) {
+    long count = 0;
+    int offset = (virtualKeyCode & 0xFF) * KeyUsageAggregator.DWELL_BUCKETS;
+    for (int bucket = 0; bucket < KeyUsageAggregator.DWELL_BUCKETS; bucket++) {
+      count += this.dwellHistograms[offset + bucket];
+    }
+    return count;
+  }
+
+  public double getMeanDwellNanos(int virtualKeyCode) {
+    long count = this.getReleaseCount(virtualKeyCode);
+    return count == 0 ? 0 : (double) this.dwellTotals[virtualKeyCode & 0xFF] / count;
+  }
+
+  public long getMaxDwellNanos(int virtualKeyCode) {
+    return this.dwellMaxima[virtualKeyCode & 0xFF];
+  }
+
+  /**
+   * Returns the time below which the passed percentage of the presses of the passed key have been released.
+   *
+   * @param virtualKeyCode the virtual key code of the key
+   * @param percentile     the percentile, between 0 and 100
+   * @return the upper bound of the bucket containing the percentile in nanoseconds, or 0 if the key has not been
+   *   released
+   */
+  public long getDwellNanosAtPercentile(int virtualKeyCode, double percentile) {
+    long count = this.getReleaseCount(virtualKeyCode);
+    if (count == 0) {
+      return 0;
+    }
+
+    long target = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * count));
+    int offset = (virtualKeyCode & 0xFF) * KeyUsageAggregator.DWELL_BUCKETS;
+    long seen = 0;
+    for (int bucket = 0; bucket < KeyUsageAggregator.DWELL_BUCKETS - 1; bucket++) {
+      seen += this.dwellHistograms[offset + bucket];
+      if (seen >= target) {
+        return Math.min(TimeUnit.MICROSECONDS.toNanos(2L << bucket), this.getMaxDwellNanos(virtualKeyCode));
+      }
+    }
+    return this.getMaxDwellNanos(virtualKeyCode);
+  }
+
+  /**
+   * Returns the dwell time histogram of the passed key. Bucket {@code i} counts the presses held for {@code 2^i} to
+   * {@code 2^(i+1)} microseconds.
+   *
+   * @param virtualKeyCode the virtual key code of the key
+   * @return a copy of the buckets
+   */
+  public long[] getDwellHistogram(int virtualKeyCode) {
+    long[] histogram = new long[KeyUsageAggregator.DWELL_BUCKETS];
+    System.arraycopy(
+      this.dwellHistograms, (virtualKeyCode & 0xFF) * histogram.length, histogram, 0, histogram.length
+    );
+    return histogram;
+  }
+
+  /**
+   * Returns the presses per second of the passed key within the window of the aggregator.
+   *
+   * @param virtualKeyCode the virtual key code of the key
+   * @return the press rate
+   */
+  public double getPressRate(int virtualKeyCode) {
+    return this.perSecond(this.windowCounts[virtualKeyCode & 0xFF]);
+  }
+
+  public double getPressRate() {
+    long count = 0;
+    for (long windowCount : this.windowCounts) {
+      count += windowCount;
+    }
+    return this.perSecond(count);
+  }
+
+  private double perSecond(long count) {
+    return this.windowNanos <= 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / this.windowNanos;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative {@code long} values with logarithmically sized buckets, similar to HdrHistogram.
+ * <p>Every power of two is split into {@value #SUB_BUCKETS} linear buckets, so every reported value is at most 1/16
+ * above the recorded one. Values are recorded without locks and without allocation, while reads may observe a
+ * recording in progress.
+ */
+public final class LogHistogram {
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records the passed value. Negative values are recorded as 0.
+   *
+   * @param value the value to be recorded
+   */
+  public void record(long value) {
+    value = Math.max(value, 0);
+    this.counts.incrementAndGet(index(value));
+    this.count.increment();
+    this.total.add(value);
+
+    long max = this.max.get();
+    while (value > max && !this.max.compareAndSet(max, value)) {
+      max = this.max.get();
+    }
+  }
+
+  public long getCount() {
+    return this.count.sum();
+  }
+
+  public long getMax() {
+    return this.max.get();
+  }
+
+  public double getMean() {
+    long count = this.count.sum();
+    return count == 0 ? 0 : (double) this.total.sum() / count;
+  }
+
+  /**
+   * Returns the value below or at which the passed percentage of all recorded values lies.
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return the highest value of the bucket containing the percentile, or 0 if nothing has been recorded
+   */
+  public long getValueAtPercentile(double percentile) {
+    long count = this.count.sum();
+    if (count == 0) {
+      return 0;
+    }
+
+    long target = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * count));
+    long seen = 0;
+    for (int index = 0; index < BUCKETS; index++) {
+      seen += this.counts.get(index);
+      if (seen >= target) {
+        return Math.min(highestEquivalentValue(index), this.max.get());
+      }
+    }
+    return this.max.get();
+  }
+
+  /**
+   * Removes all recorded values.
+   */
+  public void reset() {
+    for (int index = 0; index < BUCKETS; index++) {
+      this.counts.set(index, 0);
+    }
+    this.count.reset();
+    this.total.reset();
+    this.max.set(0);
+  }
+
+  private static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  private static long highestEquivalentValue(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+
+    int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long lowest = (long) (SUB_BUCKETS | index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    return lowest + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+  }
+}
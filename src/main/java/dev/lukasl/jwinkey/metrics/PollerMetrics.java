@@ -0,0 +1,262 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.metrics;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.MetricsListener;
+import dev.lukasl.jwinkey.observables.KeyStatePoller;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the measurements of a {@link KeyStatePoller} and exposes them as a JMX MBean.
+ * <p>A poller only measures while metrics are attached to it, so a poller without metrics does not pay for them.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class PollerMetrics implements MetricsListener, PollerMetricsMXBean {
+  public static final String DOMAIN = "dev.lukasl.jwinkey";
+
+  @Getter
+  private final KeyStatePoller poller;
+
+  @Getter
+  private final LogHistogram tickDurations = new LogHistogram();
+
+  @Getter
+  private final LogHistogram jitters = new LogHistogram();
+
+  @Getter
+  private final LogHistogram deliveryLatencies = new LogHistogram();
+
+  private final LongAdder nativeCalls = new LongAdder();
+  private final LongAdder transitions = new LongAdder();
+  private final AtomicLongArray transitionCounts = new AtomicLongArray(256);
+  private final LongAdder dropped = new LongAdder();
+  private volatile long resetNanos = System.nanoTime();
+  private ObjectName objectName;
+
+  @Override
+  public void onTick(long durationNanos, long jitterNanos, int nativeCalls) {
+    this.tickDurations.record(durationNanos);
+    this.jitters.record(jitterNanos);
+    this.nativeCalls.add(nativeCalls);
+  }
+
+  @Override
+  public void onTransition(int virtualKeyCode, KeyState keyState) {
+    this.transitions.increment();
+    this.transitionCounts.incrementAndGet(virtualKeyCode);
+  }
+
+  @Override
+  public void onDelivered(long latencyNanos) {
+    this.deliveryLatencies.record(latencyNanos);
+  }
+
+  @Override
+  public void onDropped() {
+    this.dropped.increment();
+  }
+
+  @Override
+  public long getTickCount() {
+    return this.tickDurations.getCount();
+  }
+
+  @Override
+  public double getTickDurationMean() {
+    return this.tickDurations.getMean();
+  }
+
+  @Override
+  public long getTickDurationP50() {
+    return this.tickDurations.getValueAtPercentile(50);
+  }
+
+  @Override
+  public long getTickDurationP99() {
+    return this.tickDurations.getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getTickDurationMax() {
+    return this.tickDurations.getMax();
+  }
+
+  @Override
+  public long getJitterP50() {
+    return this.jitters.getValueAtPercentile(50);
+  }
+
+  @Override
+  public long getJitterP99() {
+    return this.jitters.getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getJitterMax() {
+    return this.jitters.getMax();
+  }
+
+  @Override
+  public long getNativeCallCount() {
+    return this.nativeCalls.sum();
+  }
+
+  @Override
+  public long getTransitionCount() {
+    return this.transitions.sum();
+  }
+
+  @Override
+  public long[] getTransitionCounts() {
+    long[] counts = new long[this.transitionCounts.length()];
+    for (int index = 0; index < counts.length; index++) {
+      counts[index] = this.transitionCounts.get(index);
+    }
+    return counts;
+  }
+
+  @Override
+  public double getTransitionRate() {
+    return this.perSecond(this.transitions.sum());
+  }
+
+  @Override
+  public double getTransitionRate(int virtualKeyCode) {
+    return this.perSecond(this.transitionCounts.get(virtualKeyCode & 0xFF));
+  }
+
+  @Override
+  public long getDeliveredCount() {
+    return this.deliveryLatencies.getCount();
+  }
+
+  @Override
+  public long getDeliveryLatencyP99() {
+    return this.deliveryLatencies.getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getDeliveryLatencyMax() {
+    return this.deliveryLatencies.getMax();
+  }
+
+  @Override
+  public long getDroppedCount() {
+    return this.dropped.sum();
+  }
+
+  @Override
+  public int getObservableCount() {
+    return this.poller.getObservableCount();
+  }
+
+  @Override
+  public int getSubscriberCount() {
+    return this.poller.getSubscriberCount();
+  }
+
+  @Override
+  public void reset() {
+    this.tickDurations.reset();
+    this.jitters.reset();
+    this.deliveryLatencies.reset();
+    this.nativeCalls.reset();
+    this.transitions.reset();
+    for (int index = 0; index < this.transitionCounts.length(); index++) {
+      this.transitionCounts.set(index, 0);
+    }
+    this.dropped.reset();
+    this.resetNanos = System.nanoTime();
+  }
+
+  private double perSecond(long count) {
+    long elapsed = System.nanoTime() - this.resetNanos;
+    return elapsed <= 0 ? 0 : count * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+  }
+
+  /**
+   * Registers these metrics at the platform MBean server as
+   * {@code dev.lukasl.jwinkey:type=KeyStatePoller,name=<name>}.
+   *
+   * @param name the name of the poller
+   * @return the name of the registered MBean
+   * @throws IllegalStateException if the MBean could not be registered
+   */
+  public synchronized ObjectName register(@NonNull String name) {
+    try {
+      ObjectName objectName = new ObjectName(DOMAIN + ":type=KeyStatePoller,name=" + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+      this.objectName = objectName;
+      return objectName;
+    } catch (JMException e) {
+      throw new IllegalStateException("failed to register poller metrics", e);
+    }
+  }
+
+  public ObjectName register() {
+    return this.register(Integer.toHexString(System.identityHashCode(this.poller)));
+  }
+
+  /**
+   * Unregisters these metrics from the platform MBean server, if they have been registered.
+   */
+  public synchronized void unregister() {
+    if (this.objectName == null) {
+      return;
+    }
+
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.objectName);
+    } catch (JMException e) {
+      throw new IllegalStateException("failed to unregister poller metrics", e);
+    } finally {
+      this.objectName = null;
+    }
+  }
+
+  /**
+   * Creates metrics for the passed poller and attaches them as its {@link MetricsListener}, replacing any other one.
+   *
+   * @param poller the poller to be measured
+   * @return the attached metrics
+   */
+  public static PollerMetrics attach(@NonNull KeyStatePoller poller) {
+    PollerMetrics metrics = new PollerMetrics(poller);
+    poller.setMetricsListener(metrics);
+    return metrics;
+  }
+
+  /**
+   * Detaches these metrics from their poller, which stops measuring unless another listener has been set meanwhile.
+   */
+  public void detach() {
+    if (this.poller.getMetricsListener() == this) {
+      this.poller.setMetricsListener(null);
+    }
+  }
+}
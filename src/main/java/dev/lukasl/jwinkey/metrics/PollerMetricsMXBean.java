@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.metrics;
+
+/**
+ * The management interface of {@link PollerMetrics}. All durations are in nanoseconds.
+ */
+public interface PollerMetricsMXBean {
+  long getTickCount();
+
+  double getTickDurationMean();
+
+  long getTickDurationP50();
+
+  long getTickDurationP99();
+
+  long getTickDurationMax();
+
+  long getJitterP50();
+
+  long getJitterP99();
+
+  long getJitterMax();
+
+  long getNativeCallCount();
+
+  long getTransitionCount();
+
+  /**
+   * Returns the number of transitions per virtual key code.
+   *
+   * @return an array of 256 transition counts
+   */
+  long[] getTransitionCounts();
+
+  double getTransitionRate();
+
+  /**
+   * Returns the transitions per second of the passed key since the metrics have been reset.
+   *
+   * @param virtualKeyCode the virtual key code of the key
+   * @return the transition rate
+   */
+  double getTransitionRate(int virtualKeyCode);
+
+  long getDeliveredCount();
+
+  long getDeliveryLatencyP99();
+
+  long getDeliveryLatencyMax();
+
+  long getDroppedCount();
+
+  int getObservableCount();
+
+  int getSubscriberCount();
+
+  /**
+   * Resets all counters and histograms.
+   */
+  void reset();
+}
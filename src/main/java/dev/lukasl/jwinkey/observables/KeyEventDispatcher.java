@@ -0,0 +1,285 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.KeyBitSet;
+import dev.lukasl.jwinkey.components.KeyEventQueue;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.enums.PollingMode;
+import dev.lukasl.jwinkey.enums.VirtualKey;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import dev.lukasl.jwinkey.handlers.MetricsListener;
+import dev.lukasl.jwinkey.sources.KeyStateSource;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A push-based alternative to polling: producers such as a low-level keyboard hook {@link #offer(int, KeyState, long)
+ * offer} key events to a lock-free queue, which a dispatcher thread drains into the observables of its
+ * {@link #getPoller() poller}. Subscribers and pressed state tracking work exactly as with a polling observable, but
+ * the dispatcher sleeps until an event arrives instead of scanning on a timer. Events are emitted with the time they
+ * have been offered with.
+ * <p>While a registered key is held, the dispatcher additionally wakes up once per delay, so held, repeated and long
+ * pressed states are still derived. Events the queue has no room for are dropped and counted.
+ */
+public class KeyEventDispatcher implements Closeable {
+  private final KeyEventQueue queue;
+  private final QueueKeyStateSource source;
+  private final long delayNanos;
+  private final LongAdder dropped = new LongAdder();
+  private final Thread thread;
+  private volatile boolean parked;
+
+  /**
+   * The manual poller the events are dispatched through, whose observables receive them.
+   */
+  @Getter
+  private final KeyStatePoller poller;
+
+  protected KeyEventDispatcher(int capacity, long delayNanos, ThreadFactory threadFactory, MetricsListener listener) {
+    this.queue = new KeyEventQueue(capacity);
+    this.source = new QueueKeyStateSource(this.queue);
+    this.delayNanos = delayNanos;
+    this.poller = KeyStatePoller.builder()
+      .source(this.source)
+      .pollingMode(PollingMode.PER_KEY)
+      .manual(true)
+      .metricsListener(listener)
+      .build();
+    this.thread = threadFactory.newThread(this::dispatch);
+    this.thread.start();
+  }
+
+  /**
+   * Enqueues a key event. May be called by any thread and never blocks. Only {@link KeyState#PRESSED} and
+   * {@link KeyState#RELEASED} events can be offered, all other states are derived by the observables.
+   *
+   * @param virtualKeyCode the virtual key code of the event
+   * @param keyState       the key state of the event
+   * @param nanoTime       the time of the event
+   * @return false if the queue is full and the event has been dropped
+   * @throws IllegalArgumentException if the virtual key code is not between 0 and 255, or the key state is neither
+   *   {@link KeyState#PRESSED} nor {@link KeyState#RELEASED}
+   */
+  public boolean offer(int virtualKeyCode, @NonNull KeyState keyState, long nanoTime) {
+    KeyBitSet.checkVirtualKeyCode(virtualKeyCode);
+    if (!keyState.isTransition()) {
+      throw new IllegalArgumentException("key state " + keyState + " is derived and cannot be offered");
+    }
+
+    if (!this.queue.offer(virtualKeyCode, keyState, nanoTime)) {
+      this.dropped.increment();
+      return false;
+    }
+
+    if (this.parked) {
+      LockSupport.unpark(this.thread);
+    }
+    return true;
+  }
+
+  public boolean offer(int virtualKeyCode, boolean pressed) {
+    return this.offer(virtualKeyCode, pressed ? KeyState.PRESSED : KeyState.RELEASED, System.nanoTime());
+  }
+
+  /**
+   * Creates an observable of the passed virtual key codes, which receives the events of this dispatcher.
+   *
+   * @param virtualKeyCodes the virtual key codes to be registered
+   * @return the observable
+   */
+  public KeyStateObservable observable(int... virtualKeyCodes) {
+    return new KeyStateObservable(this.poller, null).register(virtualKeyCodes);
+  }
+
+  public KeyStateObservable observable(VirtualKey... virtualKeys) {
+    int[] virtualKeyCodes = new int[virtualKeys.length];
+    for (int i = 0; i < virtualKeys.length; i++) {
+      virtualKeyCodes[i] = virtualKeys[i].getVirtualKeyCode();
+    }
+    return this.observable(virtualKeyCodes);
+  }
+
+  /**
+   * Returns the number of events which have been dropped because the queue has been full.
+   *
+   * @return the number of dropped events
+   */
+  public long getDropped() {
+    return this.dropped.sum();
+  }
+
+  public int getPending() {
+    return this.queue.size();
+  }
+
+  /**
+   * Stops the dispatcher thread, which then terminates the observables of its poller with a
+   * {@link CancellationException}. Events which have not been dispatched yet are discarded.
+   */
+  @Override
+  public void close() {
+    this.thread.interrupt();
+  }
+
+  /**
+   * Runs the dispatcher loop. Every scan applies the queued events of the same time up to the second event of any key.
+   * The first event of another time or the second one of a key is postponed to the next scan, so no transition is lost
+   * and every event keeps its time. The thread announces that it is about to park before
+   * checking the queue a last time, so a producer either sees the announcement or its event is seen by the check.
+   * <p>If a scan fails, the observables are terminated with its exception like those of a polling thread.
+   * Once the thread has been interrupted, they are terminated with a {@link CancellationException}.
+   */
+  private void dispatch() {
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        boolean active = this.poller.scan();
+        if (this.source.hasPending()) {
+          continue;
+        }
+
+        this.parked = true;
+        if (this.queue.isEmpty()) {
+          if (active) {
+            LockSupport.parkNanos(this, this.delayNanos);
+          } else {
+            LockSupport.park(this);
+          }
+        }
+        this.parked = false;
+      }
+      this.poller.terminate(new CancellationException("the dispatcher has been closed"));
+    } catch (RuntimeException e) {
+      this.poller.terminate(e);
+    }
+  }
+
+  @Builder
+  public static KeyEventDispatcher create(
+    Integer capacity,
+    Integer delay,
+    ThreadFactory threadFactory,
+    MetricsListener metricsListener
+  ) {
+    return new KeyEventDispatcher(
+      capacity != null ? capacity : 4096,
+      TimeUnit.MILLISECONDS.toNanos(delay != null ? delay : KeyStateObservable.DEFAULT_DELAY),
+      threadFactory != null ? threadFactory : dispatcherThreads(),
+      metricsListener
+    );
+  }
+
+  private static ThreadFactory dispatcherThreads() {
+    return (runnable) -> {
+      Thread thread = new Thread(runnable, "jwinkey-dispatcher");
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * The key state source of the poller, holding the state the queued events have been applied to and their time. It
+   * is only accessed by the dispatcher thread.
+   */
+  private static class QueueKeyStateSource implements KeyStateSource, KeyEventHandler {
+    private final long[] state = new long[4];
+    private final long[] changed = new long[4];
+    private final KeyEventQueue queue;
+
+    private boolean applied;
+    private long nanoTime;
+
+    private boolean postponed;
+    private int postponedVirtualKeyCode;
+    private boolean postponedPressed;
+    private long postponedNanoTime;
+
+    QueueKeyStateSource(KeyEventQueue queue) {
+      this.queue = queue;
+    }
+
+    boolean hasPending() {
+      return this.postponed || !this.queue.isEmpty();
+    }
+
+    @Override
+    public void tick() {
+      this.changed[0] = this.changed[1] = this.changed[2] = this.changed[3] = 0;
+      this.applied = false;
+      if (this.postponed) {
+        this.postponed = false;
+        this.apply(this.postponedVirtualKeyCode, this.postponedPressed, this.postponedNanoTime);
+      }
+
+      boolean polled = true;
+      while (!this.postponed && polled) {
+        polled = this.queue.poll(this);
+      }
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+      if (!keyState.isTransition()) {
+        return;
+      }
+
+      boolean pressed = keyState == KeyState.PRESSED;
+      boolean changed = (this.changed[virtualKeyCode >>> 6] & 1L << (virtualKeyCode & 0x3F)) != 0;
+      if (changed || this.applied && nanoTime != this.nanoTime) {
+        this.postponed = true;
+        this.postponedVirtualKeyCode = virtualKeyCode;
+        this.postponedPressed = pressed;
+        this.postponedNanoTime = nanoTime;
+        return;
+      }
+      this.apply(virtualKeyCode, pressed, nanoTime);
+    }
+
+    private void apply(int virtualKeyCode, boolean pressed, long nanoTime) {
+      int index = virtualKeyCode >>> 6;
+      long bit = 1L << (virtualKeyCode & 0x3F);
+      this.applied = true;
+      this.nanoTime = nanoTime;
+      this.changed[index] |= bit;
+      if (pressed) {
+        this.state[index] |= bit;
+      } else {
+        this.state[index] &= ~bit;
+      }
+    }
+
+    @Override
+    public long getNanoTime(long scanNanoTime) {
+      return this.applied ? this.nanoTime : scanNanoTime;
+    }
+
+    @Override
+    public KeyState getKeyState(int virtualKeyCode) {
+      return (this.state[(virtualKeyCode & 0xFF) >>> 6] & 1L << (virtualKeyCode & 0x3F)) != 0
+        ? KeyState.PRESSED
+        : KeyState.RELEASED;
+    }
+  }
+}
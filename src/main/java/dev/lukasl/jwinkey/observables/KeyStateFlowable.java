@@ -0,0 +1,315 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.KeyBitSet;
+import dev.lukasl.jwinkey.components.KeyEventRingBuffer;
+import dev.lukasl.jwinkey.components.KeyStateUpdate;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.enums.OverflowStrategy;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import dev.lukasl.jwinkey.handlers.MetricsListener;
+import io.reactivex.rxjava3.annotations.NonNull;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link Flowable} view of a {@link KeyStateObservable} which decouples the poller from its subscribers.
+ * <p>The poller publishes every transition into a bounded {@link KeyEventRingBuffer} per subscriber, which is drained
+ * on a worker of the passed {@link Scheduler} as far as the subscriber has requested. If a buffer is full, the
+ * {@link OverflowStrategy} decides which events are dropped; their number is reported by {@link #getDropped()}.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class KeyStateFlowable extends Flowable<KeyStateUpdate> {
+  private static final long BLOCK_PARK_NANOS = 10_000;
+
+  private final LongAdder dropped = new LongAdder();
+  private final KeyStateObservable observable;
+
+  @Getter
+  private final int capacity;
+
+  @Getter
+  private final OverflowStrategy overflowStrategy;
+
+  private final Scheduler scheduler;
+
+  /**
+   * Returns the number of events dropped or coalesced by all subscriptions of this flowable.
+   *
+   * @return the number of lost events
+   */
+  public long getDropped() {
+    return this.dropped.sum();
+  }
+
+  @Override
+  protected void subscribeActual(@NonNull Subscriber<? super KeyStateUpdate> subscriber) {
+    KeyStateSubscription subscription = new KeyStateSubscription(this, subscriber);
+    subscriber.onSubscribe(subscription);
+    subscription.connect(this.observable.handle(subscription));
+  }
+
+  /**
+   * The subscription of a single subscriber. The poller thread offers events to its ring buffer, while the drain loop
+   * runs on a scheduler worker whenever events or requests arrive, serialized by the work-in-progress counter.
+   */
+  private static final class KeyStateSubscription extends AtomicInteger
+    implements Subscription, KeyEventHandler, Runnable {
+    private static final long serialVersionUID = 6210914617325489613L;
+
+    private final KeyStateFlowable flowable;
+    private final KeyStatePoller poller;
+    private final Subscriber<? super KeyStateUpdate> subscriber;
+    private final KeyEventRingBuffer buffer;
+    private final Scheduler.Worker worker;
+    private final AtomicLong requested = new AtomicLong();
+    private final KeyEventHandler emitter = new KeyEventHandler() {
+      @Override
+      public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+        this.onEvent(virtualKeyCode, keyState, nanoTime, 0);
+      }
+
+      @Override
+      public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+        KeyStateSubscription.this.emit(virtualKeyCode, keyState, nanoTime, pressDurationNanos);
+      }
+    };
+
+    /**
+     * The latest events of keys which could not be buffered in {@link OverflowStrategy#COALESCE} mode and the keys
+     * having such an event. Every event is replaced and taken as a whole, together with its time and press duration,
+     * as a key may receive several events per scan. Updates are only allocated once the buffer is full.
+     */
+    private final AtomicReferenceArray<KeyStateUpdate> coalesced = new AtomicReferenceArray<>(256);
+    private final KeyBitSet pending = new KeyBitSet();
+
+    private volatile Disposable upstream;
+    private volatile boolean cancelled;
+    private volatile boolean done;
+    private Throwable error;
+
+    private KeyStateSubscription(KeyStateFlowable flowable, Subscriber<? super KeyStateUpdate> subscriber) {
+      this.flowable = flowable;
+      this.poller = flowable.observable.getPoller();
+      this.subscriber = subscriber;
+      this.buffer = new KeyEventRingBuffer(flowable.capacity);
+      this.worker = flowable.scheduler.createWorker();
+    }
+
+    private void connect(Disposable upstream) {
+      this.upstream = upstream;
+      if (this.cancelled) {
+        upstream.dispose();
+      }
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+      this.onEvent(virtualKeyCode, keyState, nanoTime, 0);
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+      if (this.cancelled) {
+        return;
+      }
+
+      switch (this.flowable.overflowStrategy) {
+        case DROP_NEWEST:
+          if (!this.buffer.offer(virtualKeyCode, keyState, nanoTime, pressDurationNanos)) {
+            this.drop();
+          }
+          break;
+        case DROP_OLDEST:
+          while (!this.buffer.offer(virtualKeyCode, keyState, nanoTime, pressDurationNanos)) {
+            if (this.buffer.dropOldest()) {
+              this.drop();
+            }
+          }
+          break;
+        case COALESCE:
+          boolean buffered = this.coalesced.get(virtualKeyCode) == null
+            && this.buffer.offer(virtualKeyCode, keyState, nanoTime, pressDurationNanos);
+          if (!buffered) {
+            KeyStateUpdate update = new KeyStateUpdate(virtualKeyCode, keyState, nanoTime, pressDurationNanos);
+            if (this.coalesced.getAndSet(virtualKeyCode, update) != null) {
+              this.drop();
+            }
+            this.pending.add(virtualKeyCode);
+          }
+          break;
+        case BLOCK:
+          while (!this.buffer.offer(virtualKeyCode, keyState, nanoTime, pressDurationNanos) && !this.cancelled) {
+            this.schedule();
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+          }
+          break;
+      }
+
+      this.schedule();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      this.error = throwable;
+      this.done = true;
+      this.schedule();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        this.cancel();
+        this.subscriber.onError(new IllegalArgumentException("rule 3.9 violated: positive request amount required"));
+        return;
+      }
+
+      long requested;
+      do {
+        requested = this.requested.get();
+        if (requested == Long.MAX_VALUE) {
+          break;
+        }
+      } while (!this.requested.compareAndSet(requested, requested + n < 0 ? Long.MAX_VALUE : requested + n));
+      this.schedule();
+    }
+
+    @Override
+    public void cancel() {
+      if (this.cancelled) {
+        return;
+      }
+      this.cancelled = true;
+
+      Disposable upstream = this.upstream;
+      if (upstream != null) {
+        upstream.dispose();
+      }
+      this.worker.dispose();
+    }
+
+    private void schedule() {
+      if (this.getAndIncrement() == 0) {
+        this.worker.schedule(this);
+      }
+    }
+
+    @Override
+    public void run() {
+      int missed = 1;
+
+      while (true) {
+        long requested = this.requested.get();
+        long emitted = 0;
+
+        while (emitted != requested) {
+          if (this.cancelled) {
+            return;
+          }
+
+          boolean done = this.done;
+          if (this.buffer.poll(this.emitter) || this.pollCoalesced()) {
+            emitted++;
+            continue;
+          }
+
+          if (done) {
+            this.terminate();
+            return;
+          }
+          break;
+        }
+
+        if (emitted == requested && this.done && this.buffer.isEmpty() && this.pending.isEmpty()) {
+          this.terminate();
+          return;
+        }
+
+        if (emitted != 0 && requested != Long.MAX_VALUE) {
+          this.requested.addAndGet(-emitted);
+        }
+
+        missed = this.addAndGet(-missed);
+        if (missed == 0) {
+          return;
+        }
+      }
+    }
+
+    private boolean pollCoalesced() {
+      for (int index = 0; index < KeyBitSet.WORDS; index++) {
+        long word = this.pending.word(index);
+        while (word != 0) {
+          int virtualKeyCode = (index << 6) | Long.numberOfTrailingZeros(word);
+          word &= word - 1;
+
+          this.pending.remove(virtualKeyCode);
+          KeyStateUpdate update = this.coalesced.getAndSet(virtualKeyCode, null);
+          if (update != null) {
+            this.emit(update);
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private void emit(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+      this.emit(new KeyStateUpdate(virtualKeyCode, keyState, nanoTime, pressDurationNanos));
+    }
+
+    private void emit(KeyStateUpdate update) {
+      MetricsListener listener = this.poller.getMetricsListener();
+      if (listener != null) {
+        listener.onDelivered(System.nanoTime() - update.getNanoTime());
+      }
+
+      this.subscriber.onNext(update);
+    }
+
+    private void drop() {
+      this.flowable.dropped.increment();
+
+      MetricsListener listener = this.poller.getMetricsListener();
+      if (listener != null) {
+        listener.onDropped();
+      }
+    }
+
+    private void terminate() {
+      this.cancel();
+      if (this.error != null) {
+        this.subscriber.onError(this.error);
+      } else {
+        this.subscriber.onComplete();
+      }
+    }
+  }
+}
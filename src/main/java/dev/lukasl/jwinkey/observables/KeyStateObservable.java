@@ -16,40 +16,123 @@
 
 package dev.lukasl.jwinkey.observables;
 
+import dev.lukasl.jwinkey.components.DerivedStatePolicy;
+import dev.lukasl.jwinkey.components.KeyBitSet;
+import dev.lukasl.jwinkey.components.KeySet;
+import dev.lukasl.jwinkey.components.KeyStateBatch;
+import dev.lukasl.jwinkey.components.KeyStateSnapshot;
 import dev.lukasl.jwinkey.components.KeyStateUpdate;
+import dev.lukasl.jwinkey.components.PollingPolicy;
 import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.enums.OverflowStrategy;
+import dev.lukasl.jwinkey.enums.PollingMode;
 import dev.lukasl.jwinkey.enums.VirtualKey;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import dev.lukasl.jwinkey.sources.KeyStateSource;
+import dev.lukasl.jwinkey.sources.User32KeyStateSource;
 import io.reactivex.rxjava3.annotations.NonNull;
+import io.reactivex.rxjava3.core.Emitter;
+import io.reactivex.rxjava3.core.Flowable;
 import io.reactivex.rxjava3.core.Observable;
 import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.core.Scheduler;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.exceptions.CompositeException;
+import io.reactivex.rxjava3.exceptions.Exceptions;
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+import io.reactivex.rxjava3.schedulers.Schedulers;
 import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import java.util.*;
-import java.util.concurrent.CopyOnWriteArraySet;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 @RequiredArgsConstructor(access = AccessLevel.PROTECTED)
 public class KeyStateObservable extends Observable<KeyStateUpdate> {
-  private final ExecutorService executorService = Executors.newSingleThreadExecutor();
-  private final Set<Integer> registered = new CopyOnWriteArraySet<>();
-  private final Set<Integer> pressed = new CopyOnWriteArraySet<>();
-  private final int delay;
+  static final int DEFAULT_DELAY = 10;
+  private static final KeyStateDisposable[] EMPTY = new KeyStateDisposable[0];
+
+  private final Object lock = new Object();
+  private volatile KeyStateDisposable[] subscribers = EMPTY;
+
+  private final KeyBitSet registered = new KeyBitSet();
+  private final KeyBitSet pressed = new KeyBitSet();
+
+  /**
+   * The subscribers of every virtual key code which have subscribed to a view returned by {@link #forKeys(KeySet)},
+   * and the keys having such subscribers. Every slot is replaced on change, like {@link #subscribers}.
+   */
+  private final AtomicReferenceArray<KeyStateDisposable[]> routes = new AtomicReferenceArray<>(256);
+  private final KeyBitSet routed = new KeyBitSet();
+  private volatile int routedCount;
+
+  /**
+   * The state of the observed keys as of the latest scan which changed it, or of the latest removal of a view whose
+   * keys have been pressed. It is published by both the poller and disposing threads, see {@link #publish(long, long)}.
+   */
+  private final AtomicReference<KeyStateSnapshot> snapshot = new AtomicReference<>(KeyStateSnapshot.EMPTY);
+
+  /**
+   * Whether the subscribers of this observable have received an event during the current scan.
+   */
+  private boolean emitted;
+
+  /**
+   * The time of the latest press per virtual key code, only accessed by the poller.
+   */
+  private final long[] pressedAt = new long[256];
+
+  /**
+   * The per-key state of the derived state detection, only accessed by the poller: the time of the next repetition,
+   * the time of the previous press and the keys which have been reported as held, as long pressed or which have been
+   * tapped once within the double tap window.
+   */
+  private final long[] repeatAt = new long[256];
+  private final long[] tappedAt = new long[256];
+  private final long[] held = new long[KeyBitSet.WORDS];
+  private final long[] longPressed = new long[KeyBitSet.WORDS];
+  private final long[] tapped = new long[KeyBitSet.WORDS];
+
+  @Getter
+  private final KeyStatePoller poller;
+
+  /**
+   * The policy of the derived key states, or null if only transitions are reported.
+   */
+  @Getter
+  private final DerivedStatePolicy derivedStatePolicy;
 
   public KeyStateObservable register(@lombok.NonNull Collection<Integer> virtualKeyCodes) {
     this.registered.addAll(virtualKeyCodes);
     return this;
   }
 
-  public KeyStateObservable register(Integer... virtualKeyCodes) {
-    Collections.addAll(this.registered, virtualKeyCodes);
+  public KeyStateObservable register(int... virtualKeyCodes) {
+    for (int virtualKeyCode : virtualKeyCodes) {
+      this.registered.add(virtualKeyCode);
+    }
     return this;
   }
 
-  public KeyStateObservable unregister(Integer... virtualKeyCodes) {
-    this.registered.removeAll(Arrays.asList(virtualKeyCodes));
+  public KeyStateObservable register(@lombok.NonNull KeySet virtualKeyCodes) {
+    this.registered.addAll(virtualKeyCodes);
+    return this;
+  }
+
+  public KeyStateObservable unregister(int... virtualKeyCodes) {
+    for (int virtualKeyCode : virtualKeyCodes) {
+      this.registered.remove(virtualKeyCode);
+    }
+    return this;
+  }
+
+  public KeyStateObservable unregister(@lombok.NonNull KeySet virtualKeyCodes) {
+    this.registered.removeAll(virtualKeyCodes);
     return this;
   }
 
@@ -59,34 +142,129 @@ public class KeyStateObservable extends Observable<KeyStateUpdate> {
   }
 
   public boolean isPressed(Collection<Integer> virtualKeyCodes) {
-    return this.pressed.containsAll(virtualKeyCodes);
+    long word0 = 0, word1 = 0, word2 = 0, word3 = 0;
+    for (int virtualKeyCode : virtualKeyCodes) {
+      switch (KeyBitSet.index(virtualKeyCode)) {
+        case 0:
+          word0 |= KeyBitSet.bit(virtualKeyCode);
+          break;
+        case 1:
+          word1 |= KeyBitSet.bit(virtualKeyCode);
+          break;
+        case 2:
+          word2 |= KeyBitSet.bit(virtualKeyCode);
+          break;
+        default:
+          word3 |= KeyBitSet.bit(virtualKeyCode);
+      }
+    }
+    return this.pressed.containsAll(word0, word1, word2, word3);
   }
 
-  public boolean isPressed(Integer... virtualKeyCodes) {
-    return this.isPressed(Arrays.asList(virtualKeyCodes));
+  public boolean isPressed(int... virtualKeyCodes) {
+    for (int virtualKeyCode : virtualKeyCodes) {
+      if (!this.pressed.contains(virtualKeyCode)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether all keys of the passed set are pressed, comparing the masks word by word.
+   *
+   * @param virtualKeyCodes the virtual key codes to be checked
+   * @return true if all keys are pressed
+   */
+  public boolean isPressed(@lombok.NonNull KeySet virtualKeyCodes) {
+    return this.pressed.containsAll(virtualKeyCodes);
   }
 
   public boolean isPressed(VirtualKey... virtualKeys) {
-    return this.isPressed(Arrays.stream(virtualKeys).map(VirtualKey::getVirtualKeyCode).toArray(Integer[]::new));
+    for (VirtualKey virtualKey : virtualKeys) {
+      if (!this.pressed.contains(virtualKey.getVirtualKeyCode())) {
+        return false;
+      }
+    }
+    return true;
   }
 
+  /**
+   * Returns a copy of the currently pressed keys. Readers querying the state repeatedly, e.g. once per frame, should
+   * use {@link #getSnapshot()} instead, which neither allocates nor mixes the results of different scans.
+   *
+   * @return the pressed virtual key codes
+   */
   public Set<Integer> getPressed() {
-    return new HashSet<>(this.pressed);
+    return this.pressed.toSet();
+  }
+
+  public KeySet getPressedKeys() {
+    return this.pressed.snapshot();
+  }
+
+  /**
+   * Returns the state of the observed keys as of the latest scan which changed it, or of the latest removal of a view
+   * whose keys have been pressed.
+   *
+   * @return the latest snapshot
+   */
+  public KeyStateSnapshot getSnapshot() {
+    return this.snapshot.get();
+  }
+
+  /**
+   * Publishes the pressed keys as the snapshot succeeding the current one. The pressed keys are read again whenever
+   * another thread has published in between, so every snapshot gets its own sequence and the latest one holds the
+   * latest pressed keys.
+   *
+   * @param tick     the number of scans performed by the poller
+   * @param nanoTime the time of the change
+   */
+  private void publish(long tick, long nanoTime) {
+    KeyStateSnapshot snapshot;
+    do {
+      snapshot = this.snapshot.get();
+    } while (!this.snapshot.compareAndSet(snapshot, snapshot.next(tick, nanoTime, this.pressed.snapshot())));
   }
 
   public Set<Integer> getReleased() {
-    return this.registered
-      .stream()
-      .filter((keyCode) -> !this.pressed.contains(keyCode))
-      .collect(Collectors.toSet());
+    return this.registered.difference(this.pressed);
+  }
+
+  /**
+   * Returns a view of this observable which only emits the events of the passed key. See {@link #forKeys(KeySet)}.
+   *
+   * @param virtualKeyCode the virtual key code to be observed
+   * @return the view
+   */
+  public RoutedKeyStateObservable forKey(int virtualKeyCode) {
+    return this.forKeys(KeySet.of(virtualKeyCode));
+  }
+
+  public RoutedKeyStateObservable forKey(@lombok.NonNull VirtualKey virtualKey) {
+    return this.forKey(virtualKey.getVirtualKeyCode());
+  }
+
+  /**
+   * Returns a view of this observable which only emits the events of the passed keys. The keys are observed as long as
+   * the view has subscribers, whether they have been registered or not.
+   * <p>Subscribers of views are kept per virtual key code, so an event is only passed to the subscribers interested
+   * in it instead of being filtered by every subscriber.
+   *
+   * @param virtualKeyCodes the virtual key codes to be observed
+   * @return the view
+   */
+  public RoutedKeyStateObservable forKeys(@lombok.NonNull KeySet virtualKeyCodes) {
+    return new RoutedKeyStateObservable(this, virtualKeyCodes);
   }
 
-  private void press(int virtualKeyCode) {
-    this.pressed.add(virtualKeyCode);
+  public RoutedKeyStateObservable forKeys(int... virtualKeyCodes) {
+    return this.forKeys(KeySet.of(virtualKeyCodes));
   }
 
-  private void release(int virtualKeyCode) {
-    this.pressed.remove(virtualKeyCode);
+  public RoutedKeyStateObservable forKeys(VirtualKey... virtualKeys) {
+    return this.forKeys(KeySet.of(virtualKeys));
   }
 
   /**
@@ -99,47 +277,532 @@ public class KeyStateObservable extends Observable<KeyStateUpdate> {
    * @param observer the incoming {@code Observer}, never {@code null}
    */
   @Override
-  @SuppressWarnings({"BusyWait", "InfiniteLoopStatement"})
   protected void subscribeActual(@NonNull Observer<? super KeyStateUpdate> observer) {
-    this.executorService.submit(() -> {
-      while (true) {
-        this.registered.forEach((virtualKeyCode) -> {
-          KeyState keyState = KeyState.getKeyState(virtualKeyCode);
-
-          if (keyState == KeyState.RELEASED && this.isPressed(virtualKeyCode)) {
-            this.release(virtualKeyCode);
-            observer.onNext(new KeyStateUpdate(virtualKeyCode, KeyState.RELEASED));
-            return;
-          }
+    KeyStateDisposable disposable = new KeyStateDisposable(this, new ObserverKeyEventHandler(observer));
+    observer.onSubscribe(disposable);
+    this.add(disposable);
+  }
+
+  /**
+   * Subscribes the passed handler, which receives every transition in primitive form instead of as a
+   * {@link KeyStateUpdate}.
+   *
+   * @param handler the handler to be subscribed
+   * @return the {@link Disposable} to unsubscribe the handler
+   */
+  public Disposable handle(@lombok.NonNull KeyEventHandler handler) {
+    KeyStateDisposable disposable = new KeyStateDisposable(this, handler);
+    this.add(disposable);
+    return disposable;
+  }
+
+  /**
+   * Returns a view of this observable which emits all events of a scan as one {@link KeyStateBatch}, so subscribers
+   * pay the cost of an item once per scan instead of once per event.
+   *
+   * @return the batched view
+   */
+  public Observable<KeyStateBatch> batched() {
+    return Observable.create((emitter) -> emitter.setDisposable(this.handle(new BatchingKeyEventHandler(emitter))));
+  }
+
+  /**
+   * Returns a {@link Flowable} view of this observable which buffers up to {@code capacity} events per subscriber and
+   * delivers them on the {@link Schedulers#single()} scheduler, so slow subscribers never delay polling.
+   *
+   * @param capacity         the capacity of the buffer of every subscriber
+   * @param overflowStrategy the strategy to be applied if a buffer is full
+   * @return the buffered flowable
+   */
+  public KeyStateFlowable buffered(int capacity, @lombok.NonNull OverflowStrategy overflowStrategy) {
+    return this.buffered(capacity, overflowStrategy, Schedulers.single());
+  }
+
+  public KeyStateFlowable buffered(
+    int capacity,
+    @lombok.NonNull OverflowStrategy overflowStrategy,
+    @lombok.NonNull Scheduler scheduler
+  ) {
+    return new KeyStateFlowable(this, capacity, overflowStrategy, scheduler);
+  }
+
+  void route(KeySet virtualKeyCodes, Observer<? super KeyStateUpdate> observer) {
+    KeyEventHandler handler = new ObserverKeyEventHandler(observer);
+    KeyStateDisposable disposable = new KeyStateDisposable(this, handler, virtualKeyCodes);
+    observer.onSubscribe(disposable);
+    this.add(disposable);
+  }
+
+  Disposable route(KeySet virtualKeyCodes, KeyEventHandler handler) {
+    KeyStateDisposable disposable = new KeyStateDisposable(this, handler, virtualKeyCodes);
+    this.add(disposable);
+    return disposable;
+  }
+
+  /**
+   * Adds the passed subscriber and attaches this observable to its poller if it is the first one.
+   *
+   * @param disposable the subscriber to be added
+   */
+  private void add(KeyStateDisposable disposable) {
+    synchronized (this.lock) {
+      if (disposable.isDisposed()) {
+        return;
+      }
+
+      boolean first = this.getSubscriberCount() == 0;
+      disposable.added = true;
+      if (disposable.virtualKeyCodes != null) {
+        disposable.virtualKeyCodes.forEach((virtualKeyCode) -> {
+          this.routes.set(virtualKeyCode, append(this.routes.get(virtualKeyCode), disposable));
+          this.routed.add(virtualKeyCode);
+        });
+        this.routedCount++;
+      } else {
+        this.subscribers = append(this.subscribers, disposable);
+      }
+
+      if (first) {
+        this.pressed.clear();
+        this.publish(this.poller.getTickCount(), System.nanoTime());
+        this.poller.attach(this);
+      }
+    }
+  }
+
+  /**
+   * Removes the passed subscriber and detaches this observable from its poller if it has been the last one.
+   *
+   * @param disposable the subscriber to be removed
+   */
+  private void remove(KeyStateDisposable disposable) {
+    synchronized (this.lock) {
+      if (!disposable.added) {
+        return;
+      }
+      disposable.added = false;
 
-          if (keyState == KeyState.PRESSED && !this.isPressed(virtualKeyCode)) {
-            this.press(virtualKeyCode);
-            observer.onNext(new KeyStateUpdate(virtualKeyCode, KeyState.PRESSED));
+      if (disposable.virtualKeyCodes != null) {
+        KeySet routed = this.routed.snapshot();
+        disposable.virtualKeyCodes.forEach((virtualKeyCode) -> {
+          KeyStateDisposable[] updated = without(this.routes.get(virtualKeyCode), disposable);
+          this.routes.set(virtualKeyCode, updated.length == 0 ? null : updated);
+          if (updated.length == 0) {
+            this.routed.remove(virtualKeyCode);
+            if (!this.registered.contains(virtualKeyCode)) {
+              this.pressed.remove(virtualKeyCode);
+            }
           }
         });
+        this.routedCount--;
+        if (!this.routed.snapshot().equals(routed)) {
+          this.publish(this.poller.getTickCount(), System.nanoTime());
+        }
+      } else {
+        this.subscribers = without(this.subscribers, disposable);
+      }
+
+      if (this.getSubscriberCount() == 0) {
+        this.poller.detach(this);
+      }
+    }
+  }
+
+  private static KeyStateDisposable[] append(KeyStateDisposable[] subscribers, KeyStateDisposable disposable) {
+    if (subscribers == null) {
+      return new KeyStateDisposable[]{disposable};
+    }
+
+    KeyStateDisposable[] updated = Arrays.copyOf(subscribers, subscribers.length + 1);
+    updated[subscribers.length] = disposable;
+    return updated;
+  }
+
+  private static KeyStateDisposable[] without(KeyStateDisposable[] subscribers, KeyStateDisposable disposable) {
+    int index = Arrays.asList(subscribers).indexOf(disposable);
+    KeyStateDisposable[] updated = new KeyStateDisposable[subscribers.length - 1];
+    System.arraycopy(subscribers, 0, updated, 0, index);
+    System.arraycopy(subscribers, index + 1, updated, index, updated.length - index);
+    return updated;
+  }
+
+  /**
+   * Returns the number of subscribers, including those of the views returned by {@link #forKeys(KeySet)}.
+   *
+   * @return the number of subscribers
+   */
+  public int getSubscriberCount() {
+    return this.subscribers.length + this.routedCount;
+  }
+
+  /**
+   * Returns the keys observed by this observable, which are the registered keys and the keys of all views having
+   * subscribers.
+   *
+   * @param index the index of the word
+   * @return the word of the observed keys
+   */
+  long observed(int index) {
+    return this.registered.word(index) | this.routed.word(index);
+  }
+
+  /**
+   * Emits an update for every registered key whose state differs from the passed one, followed by the derived states
+   * which are due, and publishes a new snapshot if any key has changed. Is called by the poller after every scan.
+   * <p>Released keys which have been tapped since the previous scan are emitted as {@link KeyState#PRESSED} followed
+   * by {@link KeyState#RELEASED}, both at the time of the scan and with a press duration of 0, as the actual times
+   * are unknown. A key which has been held at the previous scan and tapped again after its release is emitted as
+   * {@link KeyState#RELEASED} followed by such a pair. Taps do not change the snapshot.
+   * <p>Pressed keys which are no longer observed, e.g. as a view has been disposed during the previous scan, are
+   * forgotten without emitting an update.
+   *
+   * @param current  the current key states, one bit per virtual key code
+   * @param taps     the keys which are released but have been pressed since the previous scan
+   * @param tick     the number of scans performed before
+   * @param nanoTime the time of the scan
+   */
+  void dispatch(long[] current, long[] taps, long tick, long nanoTime) {
+    DerivedStatePolicy policy = this.derivedStatePolicy;
+    boolean modified = false;
+
+    for (int index = 0; index < KeyBitSet.WORDS; index++) {
+      long unobserved = this.pressed.word(index) & ~this.observed(index);
+      modified |= unobserved != 0;
+      while (unobserved != 0) {
+        this.pressed.remove((index << 6) | Long.numberOfTrailingZeros(unobserved));
+        unobserved &= unobserved - 1;
+      }
+
+      long changed = (current[index] ^ this.pressed.word(index)) & this.observed(index);
+      long tappedKeys = taps[index] & ~current[index] & this.observed(index);
+      modified |= changed != 0;
+
+      while (changed != 0) {
+        int virtualKeyCode = (index << 6) | Long.numberOfTrailingZeros(changed);
+        changed &= changed - 1;
+
+        if (this.pressed.add(virtualKeyCode)) {
+          this.pressedAt[virtualKeyCode] = nanoTime;
+          this.emit(virtualKeyCode, KeyState.PRESSED, nanoTime, 0);
+          if (policy != null) {
+            this.press(policy, virtualKeyCode, nanoTime);
+          }
+        } else {
+          this.pressed.remove(virtualKeyCode);
+          this.emit(virtualKeyCode, KeyState.RELEASED, nanoTime, nanoTime - this.pressedAt[virtualKeyCode]);
+        }
+      }
+
+      while (tappedKeys != 0) {
+        int virtualKeyCode = (index << 6) | Long.numberOfTrailingZeros(tappedKeys);
+        tappedKeys &= tappedKeys - 1;
+
+        this.emit(virtualKeyCode, KeyState.PRESSED, nanoTime, 0);
+        if (policy != null) {
+          this.press(policy, virtualKeyCode, nanoTime);
+        }
+        this.emit(virtualKeyCode, KeyState.RELEASED, nanoTime, 0);
+      }
+    }
+
+    if (modified) {
+      this.publish(tick, nanoTime);
+    }
+
+    if (policy != null) {
+      for (int index = 0; index < KeyBitSet.WORDS; index++) {
+        long down = this.pressed.word(index) & this.observed(index);
+        while (down != 0) {
+          int virtualKeyCode = (index << 6) | Long.numberOfTrailingZeros(down);
+          down &= down - 1;
+          this.hold(policy, virtualKeyCode, nanoTime);
+        }
+      }
+    }
+
+    if (this.emitted) {
+      this.emitted = false;
+      for (KeyStateDisposable subscriber : this.subscribers) {
+        if (!subscriber.isDisposed()) {
+          try {
+            subscriber.handler.onTick(tick, nanoTime);
+          } catch (Throwable throwable) {
+            subscriber.fail(throwable);
+          }
+        }
+      }
+    }
+  }
+
+  private void press(DerivedStatePolicy policy, int virtualKeyCode, long nanoTime) {
+    int index = KeyBitSet.index(virtualKeyCode);
+    long bit = KeyBitSet.bit(virtualKeyCode);
+    this.held[index] &= ~bit;
+    this.longPressed[index] &= ~bit;
+    this.repeatAt[virtualKeyCode] = nanoTime + policy.getRepeatDelayNanos();
+
+    long doubleTapWindow = policy.getDoubleTapWindowNanos();
+    if ((this.tapped[index] & bit) != 0 && nanoTime - this.tappedAt[virtualKeyCode] <= doubleTapWindow) {
+      this.tapped[index] &= ~bit;
+      this.emit(virtualKeyCode, KeyState.DOUBLE_TAPPED, nanoTime, 0);
+    } else if (doubleTapWindow > 0) {
+      this.tapped[index] |= bit;
+      this.tappedAt[virtualKeyCode] = nanoTime;
+    }
+  }
+
+  private void hold(DerivedStatePolicy policy, int virtualKeyCode, long nanoTime) {
+    int index = KeyBitSet.index(virtualKeyCode);
+    long bit = KeyBitSet.bit(virtualKeyCode);
+    long duration = nanoTime - this.pressedAt[virtualKeyCode];
+
+    long holdDelay = policy.getHoldDelayNanos();
+    if (holdDelay > 0 && (this.held[index] & bit) == 0 && duration >= holdDelay) {
+      this.held[index] |= bit;
+      this.emit(virtualKeyCode, KeyState.HELD, nanoTime, duration);
+    }
+
+    long longPressDelay = policy.getLongPressDelayNanos();
+    if (longPressDelay > 0 && (this.longPressed[index] & bit) == 0 && duration >= longPressDelay) {
+      this.longPressed[index] |= bit;
+      this.emit(virtualKeyCode, KeyState.LONG_PRESSED, nanoTime, duration);
+    }
+
+    if (policy.getRepeatDelayNanos() > 0 && nanoTime - this.repeatAt[virtualKeyCode] >= 0) {
+      long next = this.repeatAt[virtualKeyCode] + policy.getRepeatIntervalNanos();
+      this.repeatAt[virtualKeyCode] = next - nanoTime > 0 ? next : nanoTime + policy.getRepeatIntervalNanos();
+      this.emit(virtualKeyCode, KeyState.REPEATED, nanoTime, duration);
+    }
+  }
 
+  private void emit(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+    if (this.registered.contains(virtualKeyCode)) {
+      this.emitted = true;
+      deliver(this.subscribers, virtualKeyCode, keyState, nanoTime, pressDurationNanos);
+    }
+
+    KeyStateDisposable[] routed = this.routes.get(virtualKeyCode);
+    if (routed != null) {
+      deliver(routed, virtualKeyCode, keyState, nanoTime, pressDurationNanos);
+    }
+  }
+
+  private static void deliver(
+    KeyStateDisposable[] subscribers,
+    int virtualKeyCode,
+    KeyState keyState,
+    long nanoTime,
+    long pressDurationNanos
+  ) {
+    for (KeyStateDisposable subscriber : subscribers) {
+      if (!subscriber.isDisposed()) {
         try {
-          Thread.sleep(this.delay);
-        } catch (InterruptedException e) {
-          observer.onError(e);
+          subscriber.handler.onEvent(virtualKeyCode, keyState, nanoTime, pressDurationNanos);
+        } catch (Throwable throwable) {
+          subscriber.fail(throwable);
         }
       }
-    });
+    }
+  }
+
+  void terminate(Throwable throwable) {
+    List<KeyStateDisposable> subscribers;
+    synchronized (this.lock) {
+      subscribers = new ArrayList<>(Arrays.asList(this.subscribers));
+      this.subscribers = EMPTY;
+
+      for (int virtualKeyCode = 0; virtualKeyCode < this.routes.length(); virtualKeyCode++) {
+        KeyStateDisposable[] routed = this.routes.getAndSet(virtualKeyCode, null);
+        if (routed != null) {
+          subscribers.addAll(Arrays.asList(routed));
+        }
+      }
+      this.routed.clear();
+      this.routedCount = 0;
+      subscribers.forEach((subscriber) -> subscriber.added = false);
+    }
+
+    for (KeyStateDisposable subscriber : subscribers) {
+      if (subscriber.compareAndSet(false, true)) {
+        subscriber.handler.onError(throwable);
+      }
+    }
+  }
+
+  @Builder
+  public static KeyStateObservable create(
+    Integer delay,
+    PollingPolicy policy,
+    KeyStateSource source,
+    PollingMode pollingMode,
+    KeyStatePoller poller,
+    DerivedStatePolicy derivedStatePolicy,
+    Collection<Integer> virtualKeyCodes
+  ) {
+    return new KeyStateObservable(
+      poller != null ? poller : KeyStatePoller.shared(
+        source != null ? source : User32KeyStateSource.INSTANCE,
+        pollingMode != null ? pollingMode : PollingMode.PER_KEY,
+        policy != null ? policy : PollingPolicy.fixed(delay != null ? delay : DEFAULT_DELAY, TimeUnit.MILLISECONDS)
+      ),
+      derivedStatePolicy
+    ).register(virtualKeyCodes != null ? virtualKeyCodes : Collections.emptyList());
+  }
+
+  public static KeyStateObservable delayed(int delay, @lombok.NonNull KeyStateSource source, int... virtualKeyCodes) {
+    KeyStatePoller poller = KeyStatePoller.shared(source, PollingMode.PER_KEY, delay);
+    return new KeyStateObservable(poller, null).register(virtualKeyCodes);
   }
 
-  public static KeyStateObservable delayed(int delay, Integer... virtualKeyCodes) {
-    return new KeyStateObservable(delay).register(virtualKeyCodes);
+  public static KeyStateObservable delayed(int delay, int... virtualKeyCodes) {
+    return delayed(delay, User32KeyStateSource.INSTANCE, virtualKeyCodes);
   }
 
   public static KeyStateObservable delayed(int delay, VirtualKey... virtualKeys) {
-    return delayed(delay, Arrays.stream(virtualKeys).map(VirtualKey::getVirtualKeyCode).toArray(Integer[]::new));
+    return delayed(delay, toVirtualKeyCodes(virtualKeys));
+  }
+
+  public static KeyStateObservable of(@lombok.NonNull KeyStateSource source, int... virtualKeyCodes) {
+    return delayed(DEFAULT_DELAY, source, virtualKeyCodes);
   }
 
-  public static KeyStateObservable of(Integer... virtualKeyCodes) {
-    return delayed(10, virtualKeyCodes);
+  public static KeyStateObservable of(int... virtualKeyCodes) {
+    return delayed(DEFAULT_DELAY, virtualKeyCodes);
   }
 
   public static KeyStateObservable of(VirtualKey... virtualKeys) {
-    return of(Arrays.stream(virtualKeys).map(VirtualKey::getVirtualKeyCode).toArray(Integer[]::new));
+    return of(toVirtualKeyCodes(virtualKeys));
+  }
+
+  private static int[] toVirtualKeyCodes(VirtualKey... virtualKeys) {
+    int[] virtualKeyCodes = new int[virtualKeys.length];
+    for (int i = 0; i < virtualKeys.length; i++) {
+      virtualKeyCodes[i] = virtualKeys[i].getVirtualKeyCode();
+    }
+    return virtualKeyCodes;
+  }
+
+  /**
+   * The {@link Disposable} handed to every subscriber, removing it from its observable once disposed.
+   */
+  private static final class KeyStateDisposable extends AtomicBoolean implements Disposable {
+    private static final long serialVersionUID = -3858532938924512766L;
+
+    private final KeyStateObservable observable;
+    private final KeyEventHandler handler;
+
+    /**
+     * The keys the subscriber is routed to, or null if it receives the events of all registered keys.
+     */
+    private final KeySet virtualKeyCodes;
+
+    /**
+     * Whether the subscriber has been added to its observable, guarded by the lock of the observable.
+     */
+    private boolean added;
+
+    private KeyStateDisposable(KeyStateObservable observable, KeyEventHandler handler) {
+      this(observable, handler, null);
+    }
+
+    private KeyStateDisposable(KeyStateObservable observable, KeyEventHandler handler, KeySet virtualKeyCodes) {
+      this.observable = observable;
+      this.handler = handler;
+      this.virtualKeyCodes = virtualKeyCodes;
+    }
+
+    @Override
+    public void dispose() {
+      if (this.compareAndSet(false, true)) {
+        this.observable.remove(this);
+      }
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return this.get();
+    }
+
+    /**
+     * Removes the subscriber after its handler has thrown and passes the failure to it, so a faulty subscriber
+     * neither affects the other subscribers nor the poller. Fatal errors are rethrown.
+     *
+     * @param throwable the failure of the handler
+     */
+    private void fail(Throwable throwable) {
+      Exceptions.throwIfFatal(throwable);
+      if (!this.compareAndSet(false, true)) {
+        RxJavaPlugins.onError(throwable);
+        return;
+      }
+
+      this.observable.remove(this);
+      try {
+        this.handler.onError(throwable);
+      } catch (Throwable failure) {
+        Exceptions.throwIfFatal(failure);
+        RxJavaPlugins.onError(new CompositeException(throwable, failure));
+      }
+    }
+  }
+
+  /**
+   * Collects the events of a scan and passes them to an {@link Emitter} as one {@link KeyStateBatch}.
+   */
+  private static final class BatchingKeyEventHandler implements KeyEventHandler {
+    private final Emitter<KeyStateBatch> emitter;
+    private final KeyStateBatch.Builder builder = new KeyStateBatch.Builder();
+
+    private BatchingKeyEventHandler(Emitter<KeyStateBatch> emitter) {
+      this.emitter = emitter;
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+      this.onEvent(virtualKeyCode, keyState, nanoTime, 0);
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+      this.builder.add(virtualKeyCode, keyState, pressDurationNanos);
+    }
+
+    @Override
+    public void onTick(long tick, long nanoTime) {
+      if (!this.builder.isEmpty()) {
+        this.emitter.onNext(this.builder.build(tick, nanoTime));
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      this.emitter.onError(throwable);
+    }
+  }
+
+  /**
+   * Adapts an {@link Observer} to the primitive {@link KeyEventHandler} interface.
+   */
+  private static final class ObserverKeyEventHandler implements KeyEventHandler {
+    private final Observer<? super KeyStateUpdate> observer;
+
+    private ObserverKeyEventHandler(Observer<? super KeyStateUpdate> observer) {
+      this.observer = observer;
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+      this.onEvent(virtualKeyCode, keyState, nanoTime, 0);
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+      this.observer.onNext(new KeyStateUpdate(virtualKeyCode, keyState, nanoTime, pressDurationNanos));
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      this.observer.onError(throwable);
+    }
   }
 }
@@ -0,0 +1,546 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.KeyBitSet;
+import dev.lukasl.jwinkey.components.PollingPolicy;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.enums.PollingMode;
+import dev.lukasl.jwinkey.handlers.MetricsListener;
+import dev.lukasl.jwinkey.sources.KeyStateSource;
+import dev.lukasl.jwinkey.sources.User32KeyStateSource;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A poller scans the keys registered by all of its attached {@link KeyStateObservable}s at once and routes every
+ * transition to the observables which registered the key.
+ * <p>Every poller owns at most one thread, which is started once the first observable is attached and which is
+ * released once the last one is detached. Observables created by the static factories of {@link KeyStateObservable}
+ * share one poller per key state source, polling mode and policy, see
+ * {@link #shared(KeyStateSource, PollingMode, PollingPolicy)}.
+ */
+public class KeyStatePoller {
+  private static final Map<Configuration, KeyStatePoller> SHARED = new ConcurrentHashMap<>();
+  private static final KeyStateObservable[] EMPTY = new KeyStateObservable[0];
+  private static final MouseMotionObservable[] NO_MOTION_OBSERVABLES = new MouseMotionObservable[0];
+  private static final long KEEP_ALIVE_SECONDS = 1;
+
+  private final long[] current = new long[KeyBitSet.WORDS];
+  private final long[] previous = new long[KeyBitSet.WORDS];
+  private final long[] taps = new long[KeyBitSet.WORDS];
+
+  /**
+   * The keys whose raw state has been read by the previous scan. The tapped bit of any other key may have been set
+   * long before, so it is only cleared by the first read.
+   */
+  private final long[] read = new long[KeyBitSet.WORDS];
+
+  /**
+   * Whether observables have been attached after polling has stopped, so {@link #read} is outdated.
+   */
+  private volatile boolean resumed;
+  private final byte[] keyboardState = new byte[KeyStateSource.KEYBOARD_STATE_SIZE];
+  private final Object lock = new Object();
+  private final int[] cursorPosition = new int[2];
+  private int cursorX;
+  private int cursorY;
+  private volatile KeyStateObservable[] observables = EMPTY;
+  private volatile MouseMotionObservable[] motionObservables = NO_MOTION_OBSERVABLES;
+  private Future<?> polling;
+
+  @Getter
+  private final KeyStateSource source;
+
+  @Getter
+  private final PollingMode pollingMode;
+
+  @Getter
+  private final PollingPolicy policy;
+
+  /**
+   * Whether this poller is driven by calling {@link #scan()} manually instead of by its own thread.
+   */
+  @Getter
+  private final boolean manual;
+
+  @Getter(AccessLevel.NONE)
+  private final ExecutorService executorService;
+
+  /**
+   * The number of scans performed, either by the polling thread or manually.
+   */
+  @Getter
+  private volatile long tickCount;
+
+  /**
+   * The time in nanoseconds the latest scan started after its deadline.
+   */
+  @Getter
+  private volatile long lastJitterNanos;
+
+  /**
+   * The highest time in nanoseconds a scan started after its deadline.
+   */
+  @Getter
+  private volatile long maxJitterNanos;
+
+  /**
+   * The listener receiving the measurements of every scan, or null if nothing is measured.
+   */
+  @Getter
+  @Setter
+  private volatile MetricsListener metricsListener;
+
+  protected KeyStatePoller(
+    KeyStateSource source,
+    PollingMode pollingMode,
+    PollingPolicy policy,
+    boolean manual,
+    ThreadFactory threadFactory,
+    MetricsListener metricsListener
+  ) {
+    this.source = source;
+    this.pollingMode = pollingMode;
+    this.policy = policy;
+    this.manual = manual;
+    this.metricsListener = metricsListener;
+    this.executorService = new ThreadPoolExecutor(
+      0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory
+    );
+  }
+
+  /**
+   * Attaches the passed observable and starts polling if it is the first one.
+   *
+   * @param observable the observable to be attached
+   */
+  void attach(KeyStateObservable observable) {
+    synchronized (this.lock) {
+      KeyStateObservable[] observables = this.observables;
+      if (Arrays.asList(observables).contains(observable)) {
+        return;
+      }
+
+      KeyStateObservable[] updated = Arrays.copyOf(observables, observables.length + 1);
+      updated[observables.length] = observable;
+      this.resumed |= this.getObservableCount() == 0;
+      this.observables = updated;
+
+      this.startPolling();
+    }
+  }
+
+  /**
+   * Attaches the passed mouse motion observable and starts polling if it is the first observable.
+   *
+   * @param observable the observable to be attached
+   */
+  void attach(MouseMotionObservable observable) {
+    synchronized (this.lock) {
+      MouseMotionObservable[] observables = this.motionObservables;
+      if (Arrays.asList(observables).contains(observable)) {
+        return;
+      }
+
+      MouseMotionObservable[] updated = Arrays.copyOf(observables, observables.length + 1);
+      updated[observables.length] = observable;
+      this.resumed |= this.getObservableCount() == 0;
+      this.motionObservables = updated;
+      this.startPolling();
+    }
+  }
+
+  /**
+   * Detaches the passed observable and stops polling if it has been the last one.
+   *
+   * @param observable the observable to be detached
+   */
+  void detach(KeyStateObservable observable) {
+    synchronized (this.lock) {
+      KeyStateObservable[] observables = this.observables;
+      int index = Arrays.asList(observables).indexOf(observable);
+      if (index < 0) {
+        return;
+      }
+
+      KeyStateObservable[] updated = new KeyStateObservable[observables.length - 1];
+      System.arraycopy(observables, 0, updated, 0, index);
+      System.arraycopy(observables, index + 1, updated, index, updated.length - index);
+      this.observables = updated;
+
+      this.stopPolling();
+    }
+  }
+
+  /**
+   * Detaches the passed mouse motion observable and stops polling if it has been the last observable.
+   *
+   * @param observable the observable to be detached
+   */
+  void detach(MouseMotionObservable observable) {
+    synchronized (this.lock) {
+      MouseMotionObservable[] observables = this.motionObservables;
+      int index = Arrays.asList(observables).indexOf(observable);
+      if (index < 0) {
+        return;
+      }
+
+      MouseMotionObservable[] updated = new MouseMotionObservable[observables.length - 1];
+      System.arraycopy(observables, 0, updated, 0, index);
+      System.arraycopy(observables, index + 1, updated, index, updated.length - index);
+      this.motionObservables = updated;
+      this.stopPolling();
+    }
+  }
+
+  private void startPolling() {
+    if (this.polling == null && !this.manual) {
+      this.polling = this.executorService.submit(this::poll);
+    }
+  }
+
+  private void stopPolling() {
+    if (this.getObservableCount() == 0 && this.polling != null) {
+      this.polling.cancel(true);
+      this.polling = null;
+    }
+  }
+
+  public int getObservableCount() {
+    return this.observables.length + this.motionObservables.length;
+  }
+
+  public int getSubscriberCount() {
+    int count = 0;
+    for (KeyStateObservable observable : this.observables) {
+      count += observable.getSubscriberCount();
+    }
+    for (MouseMotionObservable observable : this.motionObservables) {
+      count += observable.getSubscriberCount();
+    }
+    return count;
+  }
+
+  /**
+   * Runs the polling loop. Every scan has an absolute deadline, so neither the duration of a scan nor the timer slack
+   * of the operating system accumulate. If the loop falls behind by more than a period, the schedule is restarted
+   * from the current time instead of catching up with a burst of scans.
+   */
+  private void poll() {
+    long deadline = System.nanoTime();
+    long lastActivity = deadline;
+
+    try {
+      while (!Thread.currentThread().isInterrupted()) {
+        long now = System.nanoTime();
+        this.recordJitter(now - deadline);
+
+        if (this.scan(now - deadline)) {
+          lastActivity = now;
+        }
+
+        long period = this.policy.getPeriodNanos(now - lastActivity);
+        deadline = now - deadline > period ? now + period : deadline + period;
+        this.parkUntil(deadline);
+      }
+    } catch (RuntimeException e) {
+      // subscribers are isolated by their observables, so only failures of the source or the listener end up here
+      this.terminate(e);
+    }
+  }
+
+  private void parkUntil(long deadline) {
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > 0 && !Thread.currentThread().isInterrupted()) {
+      LockSupport.parkNanos(this, remaining);
+    }
+  }
+
+  private void recordJitter(long jitterNanos) {
+    this.lastJitterNanos = jitterNanos;
+    if (jitterNanos > this.maxJitterNanos) {
+      this.maxJitterNanos = jitterNanos;
+    }
+  }
+
+  /**
+   * Resets the maximum jitter reported by {@link #getMaxJitterNanos()}.
+   */
+  public void resetJitter() {
+    this.maxJitterNanos = 0;
+  }
+
+  /**
+   * Reads the state of the keys registered by any attached observable once and routes every transition to the
+   * observables which registered the key. The union of all registrations is read with one native call per key, or
+   * with a single one in {@link PollingMode#SNAPSHOT} mode. In {@link PollingMode#PER_KEY} mode, keys which have been
+   * pressed and released since the previous scan are reported as taps. If a {@link MouseMotionObservable} is attached,
+   * the cursor position is read once as well.
+   * <p>Manual pollers have to call this method periodically. It must not be called concurrently.
+   *
+   * @return true if any registered key is pressed or has changed its state or the cursor has moved since the previous
+   *   scan
+   */
+  public boolean scan() {
+    return this.scan(0);
+  }
+
+  private boolean scan(long jitterNanos) {
+    KeyStateObservable[] observables = this.observables;
+    MouseMotionObservable[] motionObservables = this.motionObservables;
+    MetricsListener listener = this.metricsListener;
+    if (this.resumed) {
+      this.resumed = false;
+      Arrays.fill(this.read, 0);
+    }
+    this.source.tick();
+    long scanNanoTime = System.nanoTime();
+    long nanoTime = this.source.getNanoTime(scanNanoTime);
+    int nativeCalls = 0;
+
+    if (this.pollingMode == PollingMode.SNAPSHOT) {
+      this.source.getKeyboardState(this.keyboardState);
+      nativeCalls += this.source.getKeyboardStateCalls();
+    }
+
+    for (int index = 0; index < KeyBitSet.WORDS; index++) {
+      long registered = 0;
+      for (KeyStateObservable observable : observables) {
+        registered |= observable.observed(index);
+      }
+
+      this.taps[index] = 0;
+      if (registered == 0) {
+        this.current[index] = 0;
+        this.read[index] = 0;
+        continue;
+      }
+
+      if (this.pollingMode == PollingMode.SNAPSHOT) {
+        this.current[index] = this.readKeyboardState(index);
+      } else {
+        this.current[index] = this.readKeyStates(index, registered);
+        nativeCalls += Long.bitCount(registered);
+      }
+    }
+
+    long tick = this.tickCount++;
+    for (KeyStateObservable observable : observables) {
+      observable.dispatch(this.current, this.taps, tick, nanoTime);
+    }
+
+    boolean active = false;
+    if (motionObservables.length > 0 && this.source.getCursorPosition(this.cursorPosition)) {
+      nativeCalls++;
+      active = this.dispatchMotion(motionObservables, nanoTime);
+    }
+
+    for (int index = 0; index < KeyBitSet.WORDS; index++) {
+      active |= this.current[index] != 0 || this.current[index] != this.previous[index];
+      active |= this.taps[index] != 0;
+      if (listener != null) {
+        this.recordTransitions(listener, index);
+      }
+      this.previous[index] = this.current[index];
+    }
+
+    if (listener != null) {
+      listener.onTick(System.nanoTime() - scanNanoTime, jitterNanos, nativeCalls);
+    }
+    return active;
+  }
+
+  /**
+   * Passes the cursor position which has just been read to the mouse motion observables.
+   *
+   * @return true if the cursor has moved since the previous scan
+   */
+  private boolean dispatchMotion(MouseMotionObservable[] observables, long nanoTime) {
+    int x = this.cursorPosition[0];
+    int y = this.cursorPosition[1];
+    for (MouseMotionObservable observable : observables) {
+      observable.dispatch(x, y, nanoTime);
+    }
+
+    boolean moved = x != this.cursorX || y != this.cursorY;
+    this.cursorX = x;
+    this.cursorY = y;
+    return moved;
+  }
+
+  private void recordTransitions(MetricsListener listener, int index) {
+    long changed = this.current[index] ^ this.previous[index];
+    while (changed != 0) {
+      int bit = Long.numberOfTrailingZeros(changed);
+      changed &= changed - 1;
+      KeyState keyState = (this.current[index] >>> bit & 1) != 0 ? KeyState.PRESSED : KeyState.RELEASED;
+      listener.onTransition((index << 6) | bit, keyState);
+    }
+
+    long tappedKeys = this.taps[index];
+    while (tappedKeys != 0) {
+      int virtualKeyCode = (index << 6) | Long.numberOfTrailingZeros(tappedKeys);
+      tappedKeys &= tappedKeys - 1;
+      listener.onTransition(virtualKeyCode, KeyState.PRESSED);
+      listener.onTransition(virtualKeyCode, KeyState.RELEASED);
+    }
+  }
+
+  private long readKeyboardState(int index) {
+    long word = 0;
+    int offset = index << 6;
+    for (int bit = 0; bit < 64; bit++) {
+      if ((this.keyboardState[offset | bit] & KeyStateSource.KEYBOARD_STATE_PRESSED_MASK) != 0) {
+        word |= 1L << bit;
+      }
+    }
+    return word;
+  }
+
+  /**
+   * Reads the raw state of every passed key, recording the keys which are released but have been pressed since the
+   * previous scan as taps. Keys which the previous scan has not read are never recorded as taps, as their tapped bit
+   * may date from before they have been registered or before polling has been started.
+   */
+  private long readKeyStates(int index, long registered) {
+    long word = 0;
+    long tapped = 0;
+    for (long remaining = registered; remaining != 0; remaining &= remaining - 1) {
+      int bit = Long.numberOfTrailingZeros(remaining);
+
+      int rawKeyState = this.source.getRawKeyState((index << 6) | bit);
+      if ((rawKeyState & KeyStateSource.RAW_KEY_STATE_PRESSED_MASK) != 0) {
+        word |= 1L << bit;
+      } else if ((rawKeyState & KeyStateSource.RAW_KEY_STATE_TAPPED_MASK) != 0) {
+        tapped |= 1L << bit;
+      }
+    }
+    this.taps[index] = tapped & this.read[index];
+    this.read[index] = registered;
+    return word;
+  }
+
+  void terminate(Throwable throwable) {
+    KeyStateObservable[] observables;
+    MouseMotionObservable[] motionObservables;
+    synchronized (this.lock) {
+      observables = this.observables;
+      motionObservables = this.motionObservables;
+      this.observables = EMPTY;
+      this.motionObservables = NO_MOTION_OBSERVABLES;
+      this.polling = null;
+    }
+
+    for (KeyStateObservable observable : observables) {
+      observable.terminate(throwable);
+    }
+    for (MouseMotionObservable observable : motionObservables) {
+      observable.terminate(throwable);
+    }
+  }
+
+  @Builder
+  public static KeyStatePoller create(
+    KeyStateSource source,
+    PollingMode pollingMode,
+    PollingPolicy policy,
+    boolean manual,
+    ThreadFactory threadFactory,
+    MetricsListener metricsListener
+  ) {
+    return new KeyStatePoller(
+      source != null ? source : User32KeyStateSource.INSTANCE,
+      pollingMode != null ? pollingMode : PollingMode.PER_KEY,
+      policy != null ? policy : PollingPolicy.fixed(KeyStateObservable.DEFAULT_DELAY, TimeUnit.MILLISECONDS),
+      manual,
+      threadFactory != null ? threadFactory : daemonThreads(),
+      metricsListener
+    );
+  }
+
+  /**
+   * Returns the process-wide poller for the passed configuration, creating it if necessary.
+   *
+   * @param source      the key state source to be polled
+   * @param pollingMode the polling mode
+   * @param policy      the polling policy
+   * @return the shared poller
+   */
+  public static KeyStatePoller shared(
+    @NonNull KeyStateSource source,
+    @NonNull PollingMode pollingMode,
+    @NonNull PollingPolicy policy
+  ) {
+    return SHARED.computeIfAbsent(
+      new Configuration(source, pollingMode, policy),
+      (configuration) -> KeyStatePoller.builder().source(source).pollingMode(pollingMode).policy(policy).build()
+    );
+  }
+
+  public static KeyStatePoller shared(@NonNull KeyStateSource source, @NonNull PollingMode pollingMode, int delay) {
+    return shared(source, pollingMode, PollingPolicy.fixed(delay, TimeUnit.MILLISECONDS));
+  }
+
+  public static KeyStatePoller shared(int delay) {
+    return shared(User32KeyStateSource.INSTANCE, PollingMode.PER_KEY, delay);
+  }
+
+  /**
+   * Returns a {@link ThreadFactory} creating daemon threads, which is used by default.
+   *
+   * @return the thread factory
+   */
+  public static ThreadFactory daemonThreads() {
+    return (runnable) -> {
+      Thread thread = new Thread(runnable, "jwinkey-poller");
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Returns a {@link ThreadFactory} creating virtual threads.
+   *
+   * @return the thread factory
+   * @throws UnsupportedOperationException if the running JVM does not support virtual threads
+   */
+  public static ThreadFactory virtualThreads() {
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      return (ThreadFactory) Class.forName("java.lang.Thread$Builder").getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException e) {
+      throw new UnsupportedOperationException("virtual threads are not supported by this JVM", e);
+    }
+  }
+
+  @Value
+  private static class Configuration {
+    KeyStateSource source;
+    PollingMode pollingMode;
+    PollingPolicy policy;
+  }
+}
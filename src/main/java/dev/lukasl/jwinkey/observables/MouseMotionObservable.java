@@ -0,0 +1,320 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.MouseMotion;
+import dev.lukasl.jwinkey.components.MouseMotionPolicy;
+import dev.lukasl.jwinkey.components.PollingPolicy;
+import dev.lukasl.jwinkey.enums.PollingMode;
+import dev.lukasl.jwinkey.handlers.MouseMotionHandler;
+import dev.lukasl.jwinkey.sources.KeyStateSource;
+import dev.lukasl.jwinkey.sources.User32KeyStateSource;
+import io.reactivex.rxjava3.annotations.NonNull;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.exceptions.CompositeException;
+import io.reactivex.rxjava3.exceptions.Exceptions;
+import io.reactivex.rxjava3.plugins.RxJavaPlugins;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * An observable of the cursor movements, which samples the cursor position of the key state source once per scan of
+ * its poller. Attached to the poller of a {@link KeyStateObservable}, keys and cursor share the same scans and thread.
+ * <p>Movements are coalesced per scan and throttled by the {@link MouseMotionPolicy}, so fast mice cannot flood the
+ * subscribers. Subscribers which do not need a {@link MouseMotion} object per movement should use
+ * {@link #handle(MouseMotionHandler)}.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class MouseMotionObservable extends Observable<MouseMotion> {
+  private static final MouseMotionDisposable[] EMPTY = new MouseMotionDisposable[0];
+
+  private final Object lock = new Object();
+  private volatile MouseMotionDisposable[] subscribers = EMPTY;
+
+  /**
+   * Whether a position has been sampled since the first subscriber has been added, and the latest emitted position,
+   * which are only accessed by the poller apart from resetting the former.
+   */
+  private volatile boolean sampled;
+  private int emittedX;
+  private int emittedY;
+  private long emittedAt;
+
+  @Getter
+  private final KeyStatePoller poller;
+
+  @Getter
+  private final MouseMotionPolicy policy;
+
+  @Override
+  protected void subscribeActual(@NonNull Observer<? super MouseMotion> observer) {
+    MouseMotionDisposable disposable = new MouseMotionDisposable(this, new ObserverMouseMotionHandler(observer));
+    observer.onSubscribe(disposable);
+    this.add(disposable);
+  }
+
+  /**
+   * Subscribes the passed handler, which receives every movement in primitive form instead of as a
+   * {@link MouseMotion}.
+   *
+   * @param handler the handler to be subscribed
+   * @return the {@link Disposable} to unsubscribe the handler
+   */
+  public Disposable handle(@lombok.NonNull MouseMotionHandler handler) {
+    MouseMotionDisposable disposable = new MouseMotionDisposable(this, handler);
+    this.add(disposable);
+    return disposable;
+  }
+
+  /**
+   * Adds the passed subscriber and attaches this observable to its poller if it is the first one.
+   *
+   * @param disposable the subscriber to be added
+   */
+  private void add(MouseMotionDisposable disposable) {
+    synchronized (this.lock) {
+      if (disposable.isDisposed()) {
+        return;
+      }
+
+      MouseMotionDisposable[] subscribers = this.subscribers;
+      MouseMotionDisposable[] updated = Arrays.copyOf(subscribers, subscribers.length + 1);
+      updated[subscribers.length] = disposable;
+      this.subscribers = updated;
+      disposable.added = true;
+
+      if (subscribers.length == 0) {
+        this.sampled = false;
+        this.poller.attach(this);
+      }
+    }
+  }
+
+  /**
+   * Removes the passed subscriber and detaches this observable from its poller if it has been the last one.
+   *
+   * @param disposable the subscriber to be removed
+   */
+  private void remove(MouseMotionDisposable disposable) {
+    synchronized (this.lock) {
+      if (!disposable.added) {
+        return;
+      }
+      disposable.added = false;
+
+      MouseMotionDisposable[] subscribers = this.subscribers;
+      int index = Arrays.asList(subscribers).indexOf(disposable);
+      MouseMotionDisposable[] updated = new MouseMotionDisposable[subscribers.length - 1];
+      System.arraycopy(subscribers, 0, updated, 0, index);
+      System.arraycopy(subscribers, index + 1, updated, index, updated.length - index);
+      this.subscribers = updated;
+
+      if (updated.length == 0) {
+        this.poller.detach(this);
+      }
+    }
+  }
+
+  public int getSubscriberCount() {
+    return this.subscribers.length;
+  }
+
+  /**
+   * Emits a movement to the position of the latest scan if it differs from the latest emitted position and passes
+   * the policy. The first position after the first subscriber has been added is only recorded. Is called by the
+   * poller after every scan which has read the cursor position.
+   *
+   * @param x        the x coordinate of the cursor
+   * @param y        the y coordinate of the cursor
+   * @param nanoTime the {@link System#nanoTime()} of the scan
+   */
+  void dispatch(int x, int y, long nanoTime) {
+    MouseMotionDisposable[] subscribers = this.subscribers;
+    if (!this.sampled) {
+      this.emittedX = x;
+      this.emittedY = y;
+      this.emittedAt = nanoTime;
+      this.sampled = true;
+      return;
+    }
+
+    int deltaX = x - this.emittedX;
+    int deltaY = y - this.emittedY;
+    int distance = Math.max(Math.abs(deltaX), Math.abs(deltaY));
+    if (distance == 0 || distance < this.policy.getMinDistance()) {
+      return;
+    }
+    if (nanoTime - this.emittedAt < this.policy.getMinIntervalNanos()) {
+      return;
+    }
+
+    this.emittedX = x;
+    this.emittedY = y;
+    this.emittedAt = nanoTime;
+    for (MouseMotionDisposable subscriber : subscribers) {
+      if (!subscriber.isDisposed()) {
+        try {
+          subscriber.handler.onMotion(x, y, deltaX, deltaY, nanoTime);
+        } catch (Throwable throwable) {
+          subscriber.fail(throwable);
+        }
+      }
+    }
+  }
+
+  void terminate(Throwable throwable) {
+    MouseMotionDisposable[] subscribers;
+    synchronized (this.lock) {
+      subscribers = this.subscribers;
+      this.subscribers = EMPTY;
+      for (MouseMotionDisposable subscriber : subscribers) {
+        subscriber.added = false;
+      }
+    }
+
+    for (MouseMotionDisposable subscriber : subscribers) {
+      if (subscriber.compareAndSet(false, true)) {
+        subscriber.handler.onError(throwable);
+      }
+    }
+  }
+
+  @Builder
+  public static MouseMotionObservable create(
+    Integer delay,
+    PollingPolicy policy,
+    KeyStateSource source,
+    KeyStatePoller poller,
+    MouseMotionPolicy motionPolicy
+  ) {
+    return new MouseMotionObservable(
+      poller != null ? poller : KeyStatePoller.shared(
+        source != null ? source : User32KeyStateSource.INSTANCE,
+        PollingMode.PER_KEY,
+        policy != null ? policy : PollingPolicy.fixed(
+          delay != null ? delay : KeyStateObservable.DEFAULT_DELAY, TimeUnit.MILLISECONDS
+        )
+      ),
+      motionPolicy != null ? motionPolicy : MouseMotionPolicy.EVERY_SCAN
+    );
+  }
+
+  /**
+   * Returns an observable of the cursor movements which shares the scans of the passed poller.
+   *
+   * @param poller       the poller, for instance the one of a {@link KeyStateObservable}
+   * @param motionPolicy the policy throttling the movements
+   * @return the observable
+   */
+  public static MouseMotionObservable of(
+    @lombok.NonNull KeyStatePoller poller,
+    @lombok.NonNull MouseMotionPolicy motionPolicy
+  ) {
+    return new MouseMotionObservable(poller, motionPolicy);
+  }
+
+  public static MouseMotionObservable of(@lombok.NonNull KeyStatePoller poller) {
+    return of(poller, MouseMotionPolicy.EVERY_SCAN);
+  }
+
+  public static MouseMotionObservable of() {
+    return builder().build();
+  }
+
+  /**
+   * The {@link Disposable} handed to every subscriber, removing it from its observable once disposed.
+   */
+  private static final class MouseMotionDisposable extends AtomicBoolean implements Disposable {
+    private static final long serialVersionUID = 2745180350826193157L;
+
+    private final MouseMotionObservable observable;
+    private final MouseMotionHandler handler;
+
+    /**
+     * Whether the subscriber has been added to its observable, guarded by the lock of the observable.
+     */
+    private boolean added;
+
+    private MouseMotionDisposable(MouseMotionObservable observable, MouseMotionHandler handler) {
+      this.observable = observable;
+      this.handler = handler;
+    }
+
+    @Override
+    public void dispose() {
+      if (this.compareAndSet(false, true)) {
+        this.observable.remove(this);
+      }
+    }
+
+    @Override
+    public boolean isDisposed() {
+      return this.get();
+    }
+
+    /**
+     * Removes the subscriber after its handler has thrown and passes the failure to it, see
+     * {@link KeyStateObservable}.
+     *
+     * @param throwable the failure of the handler
+     */
+    private void fail(Throwable throwable) {
+      Exceptions.throwIfFatal(throwable);
+      if (!this.compareAndSet(false, true)) {
+        RxJavaPlugins.onError(throwable);
+        return;
+      }
+
+      this.observable.remove(this);
+      try {
+        this.handler.onError(throwable);
+      } catch (Throwable failure) {
+        Exceptions.throwIfFatal(failure);
+        RxJavaPlugins.onError(new CompositeException(throwable, failure));
+      }
+    }
+  }
+
+  /**
+   * Adapts an {@link Observer} to the primitive {@link MouseMotionHandler} interface.
+   */
+  private static final class ObserverMouseMotionHandler implements MouseMotionHandler {
+    private final Observer<? super MouseMotion> observer;
+
+    private ObserverMouseMotionHandler(Observer<? super MouseMotion> observer) {
+      this.observer = observer;
+    }
+
+    @Override
+    public void onMotion(int x, int y, int deltaX, int deltaY, long nanoTime) {
+      this.observer.onNext(new MouseMotion(x, y, deltaX, deltaY, nanoTime));
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      this.observer.onError(throwable);
+    }
+  }
+}
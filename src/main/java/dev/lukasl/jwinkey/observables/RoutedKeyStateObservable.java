@@ -0,0 +1,57 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.KeySet;
+import dev.lukasl.jwinkey.components.KeyStateUpdate;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import io.reactivex.rxjava3.annotations.NonNull;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.core.Observer;
+import io.reactivex.rxjava3.disposables.Disposable;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A view of a {@link KeyStateObservable} which only emits the events of some keys, returned by
+ * {@link KeyStateObservable#forKeys(KeySet)}. Its subscribers are routed to directly by the virtual key code of every
+ * event.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PROTECTED)
+public class RoutedKeyStateObservable extends Observable<KeyStateUpdate> {
+  @Getter
+  private final KeyStateObservable observable;
+
+  @Getter
+  private final KeySet virtualKeyCodes;
+
+  @Override
+  protected void subscribeActual(@NonNull Observer<? super KeyStateUpdate> observer) {
+    this.observable.route(this.virtualKeyCodes, observer);
+  }
+
+  /**
+   * Subscribes the passed handler, which receives the events of the keys of this view in primitive form.
+   *
+   * @param handler the handler to be subscribed
+   * @return the {@link Disposable} to unsubscribe the handler
+   */
+  public Disposable handle(@lombok.NonNull KeyEventHandler handler) {
+    return this.observable.route(this.virtualKeyCodes, handler);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.sources;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.journal.KeyEventJournal;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A {@link KeyStateSource} which plays back a {@link KeyEventJournal}, so the recorded events reach the subscribers of
+ * any observable polling it.
+ * <p>Every scan applies the recorded events which are due, either by their recorded time divided by the speed or,
+ * when replaying as fast as possible, all of them. A scan never applies two events of the same key, as the poller
+ * would miss the first one; such an event is postponed to the next scan instead. Replaying as fast as possible
+ * therefore works best with a manual poller, which scans until {@link #isCompleted()} returns true.
+ */
+public class JournalKeyStateSource implements KeyStateSource {
+  private final long[] state = new long[4];
+  private final long[] changed = new long[4];
+  private final KeyEventJournal.Cursor cursor;
+
+  @Getter
+  private final double speed;
+
+  private boolean started;
+  private boolean pending;
+  private boolean completed;
+  private long start;
+  private long first;
+
+  protected JournalKeyStateSource(KeyEventJournal journal, double speed) {
+    if (!(speed > 0)) {
+      throw new IllegalArgumentException("speed must be positive");
+    }
+    this.cursor = journal.cursor();
+    this.speed = speed;
+  }
+
+  /**
+   * Returns whether every event of the journal has been applied.
+   *
+   * @return true if the playback has been completed
+   */
+  public synchronized boolean isCompleted() {
+    return this.completed;
+  }
+
+  @Override
+  public synchronized void tick() {
+    long now = System.nanoTime();
+    this.changed[0] = this.changed[1] = this.changed[2] = this.changed[3] = 0;
+
+    while (this.pending || this.advance()) {
+      if (!this.started) {
+        this.started = true;
+        this.start = now;
+        this.first = this.cursor.getNanoTime();
+      }
+
+      if (!this.cursor.getKeyState().isTransition()) {
+        this.pending = false;
+        continue;
+      }
+
+      int virtualKeyCode = this.cursor.getVirtualKeyCode();
+      int index = virtualKeyCode >>> 6;
+      long bit = 1L << (virtualKeyCode & 0x3F);
+      if (!this.isDue(now) || (this.changed[index] & bit) != 0) {
+        this.pending = true;
+        return;
+      }
+
+      this.changed[index] |= bit;
+      if (this.cursor.getKeyState() == KeyState.PRESSED) {
+        this.state[index] |= bit;
+      } else {
+        this.state[index] &= ~bit;
+      }
+      this.pending = false;
+    }
+  }
+
+  private boolean advance() {
+    if (this.completed) {
+      return false;
+    }
+    this.completed = !this.cursor.next();
+    return !this.completed;
+  }
+
+  private boolean isDue(long now) {
+    return this.speed == Double.POSITIVE_INFINITY
+      || now - this.start >= (long) ((this.cursor.getNanoTime() - this.first) / this.speed);
+  }
+
+  @Override
+  public synchronized KeyState getKeyState(int virtualKeyCode) {
+    return (this.state[(virtualKeyCode & 0xFF) >>> 6] & 1L << (virtualKeyCode & 0x3F)) != 0
+      ? KeyState.PRESSED
+      : KeyState.RELEASED;
+  }
+
+  @Override
+  public synchronized void getKeyboardState(byte[] keyboardState) {
+    for (int i = 0; i < 4; i++) {
+      long word = this.state[i];
+      for (int j = 0; j < 64; j++) {
+        keyboardState[(i << 6) | j] = (word & (1L << j)) != 0 ? (byte) KEYBOARD_STATE_PRESSED_MASK : 0;
+      }
+    }
+  }
+
+  /**
+   * Creates a source playing back the passed journal.
+   *
+   * @param journal the journal to be played back
+   * @param speed   the speed factor, 1 for real time or {@link Double#POSITIVE_INFINITY} for as fast as possible
+   * @return the source
+   */
+  public static JournalKeyStateSource of(@NonNull KeyEventJournal journal, double speed) {
+    return new JournalKeyStateSource(journal, speed);
+  }
+
+  public static JournalKeyStateSource of(@NonNull KeyEventJournal journal) {
+    return of(journal, 1);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.sources;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+
+/**
+ * A source of key states which is polled by a {@link dev.lukasl.jwinkey.observables.KeyStateObservable}.
+ * <p>Sources are queried from the polling thread only. Every scan starts with a call to {@link #tick()},
+ * followed by either one {@link #getKeyState(int)} call per registered virtual key code or a single
+ * {@link #getKeyboardState(byte[])} call, depending on the {@link dev.lukasl.jwinkey.enums.PollingMode}.
+ */
+public interface KeyStateSource {
+  /**
+   * The size of a keyboard state buffer, one byte per virtual key code.
+   */
+  int KEYBOARD_STATE_SIZE = 256;
+
+  /**
+   * The bit of a keyboard state byte which is set if the key is pressed.
+   */
+  int KEYBOARD_STATE_PRESSED_MASK = 0x80;
+
+  /**
+   * The bit of a raw key state which is set if the key is pressed.
+   */
+  int RAW_KEY_STATE_PRESSED_MASK = 0x8000;
+
+  /**
+   * The bit of a raw key state which is set if the key has been pressed since the previous query.
+   */
+  int RAW_KEY_STATE_TAPPED_MASK = 0x0001;
+
+  /**
+   * Returns the current state of the passed virtual key code.
+   *
+   * @param virtualKeyCode the virtual key code to be queried
+   * @return the current {@link KeyState}
+   */
+  KeyState getKeyState(int virtualKeyCode);
+
+  /**
+   * Returns the raw state of the passed virtual key code in the format of {@code GetAsyncKeyState}: the
+   * {@link #RAW_KEY_STATE_PRESSED_MASK} bit is set if the key is pressed, the {@link #RAW_KEY_STATE_TAPPED_MASK} bit
+   * if it has been pressed since the previous query. Pollers in {@link dev.lukasl.jwinkey.enums.PollingMode#PER_KEY}
+   * mode use the latter to detect keys which have been pressed and released between two scans.
+   * <p>The default implementation only reports whether the key is pressed, using {@link #getKeyState(int)}.
+   *
+   * @param virtualKeyCode the virtual key code to be queried
+   * @return the raw key state
+   */
+  default int getRawKeyState(int virtualKeyCode) {
+    return this.getKeyState(virtualKeyCode) == KeyState.PRESSED ? RAW_KEY_STATE_PRESSED_MASK : 0;
+  }
+
+  /**
+   * Writes the state of all virtual keys into the passed buffer. The byte at index {@code i} holds the state of the
+   * virtual key code {@code i} and has its {@link #KEYBOARD_STATE_PRESSED_MASK} bit set if the key is pressed.
+   * <p>The default implementation queries every key using {@link #getKeyState(int)}. Sources should override it if
+   * they are able to read all states at once.
+   *
+   * @param keyboardState the buffer of at least {@link #KEYBOARD_STATE_SIZE} bytes to be written
+   */
+  default void getKeyboardState(byte[] keyboardState) {
+    for (int virtualKeyCode = 0; virtualKeyCode < KEYBOARD_STATE_SIZE; virtualKeyCode++) {
+      keyboardState[virtualKeyCode] = this.getKeyState(virtualKeyCode) == KeyState.PRESSED
+        ? (byte) KEYBOARD_STATE_PRESSED_MASK
+        : 0;
+    }
+  }
+
+  /**
+   * Returns the number of native calls a single {@link #getKeyboardState(byte[])} call makes, which pollers report
+   * to their {@link dev.lukasl.jwinkey.handlers.MetricsListener}.
+   * <p>The default implementation returns 1.
+   *
+   * @return the number of native calls per keyboard state query
+   */
+  default int getKeyboardStateCalls() {
+    return 1;
+  }
+
+  /**
+   * Writes the position of the cursor in screen coordinates into the passed buffer, x at index 0 and y at index 1.
+   * Is called once per scan by pollers having an attached {@link dev.lukasl.jwinkey.observables.MouseMotionObservable}.
+   * <p>The default implementation reports that the position is unavailable.
+   *
+   * @param position the buffer of at least two ints to be written
+   * @return false if the position is unavailable and the buffer has not been written
+   */
+  default boolean getCursorPosition(int[] position) {
+    return false;
+  }
+
+  /**
+   * Returns the time the key states of the current scan refer to, which is passed to the subscribers. Is called once
+   * per scan, right after {@link #tick()}.
+   * <p>The default implementation returns the time of the scan.
+   *
+   * @param scanNanoTime the {@link System#nanoTime()} the scan has started at
+   * @return the time of the key states
+   */
+  default long getNanoTime(long scanNanoTime) {
+    return scanNanoTime;
+  }
+
+  /**
+   * Is called once at the beginning of every scan, before any key state is queried.
+   */
+  default void tick() {
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.sources;
+
+import com.sun.jna.Library;
+import com.sun.jna.Native;
+import com.sun.jna.NativeLibrary;
+import com.sun.jna.win32.StdCallLibrary;
+
+import java.util.Collections;
+
+/**
+ * Direct mappings of the keyboard and cursor functions of {@code user32}. Unlike interface mappings such as
+ * {@link com.sun.jna.platform.win32.User32}, direct mappings call the native function without a proxy, reflection
+ * and argument conversion.
+ * <p>The library is registered once this class is initialized, which is on the first call of any of its functions, so
+ * loading the classes of this library does not load {@code user32}.
+ */
+final class KeyboardLibrary {
+  static {
+    Native.register(KeyboardLibrary.class, NativeLibrary.getInstance(
+      "user32", Collections.singletonMap(Library.OPTION_CALLING_CONVENTION, StdCallLibrary.STDCALL_CONVENTION)
+    ));
+  }
+
+  private KeyboardLibrary() {
+  }
+
+  static native short GetAsyncKeyState(int virtualKeyCode);
+
+  static native short GetKeyState(int virtualKeyCode);
+
+  static native boolean GetKeyboardState(byte[] keyboardState);
+
+  /**
+   * Reads the cursor position into a {@code POINT}, which is laid out as two {@code LONG}s and is therefore passed as
+   * an int array instead of a structure.
+   *
+   * @param point the buffer of at least two ints receiving x and y
+   * @return false if the position could not be read
+   */
+  static native boolean GetCursorPos(int[] point);
+}
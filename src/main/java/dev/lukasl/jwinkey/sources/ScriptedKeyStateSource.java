@@ -0,0 +1,180 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.sources;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * An in-memory {@link KeyStateSource} whose key states are either set directly using {@link #press(int...)} and
+ * {@link #release(int...)} or played back from a script of frames, one frame per scan. Taps between two scans are
+ * simulated using {@link #tap(int...)}.
+ */
+public class ScriptedKeyStateSource implements KeyStateSource {
+  private final AtomicLongArray state = new AtomicLongArray(4);
+  private final AtomicLongArray taps = new AtomicLongArray(4);
+  private final List<long[]> frames = new ArrayList<>();
+  private final AtomicInteger position = new AtomicInteger();
+  private final boolean looping;
+
+  protected ScriptedKeyStateSource(boolean looping) {
+    this.looping = looping;
+  }
+
+  /**
+   * Appends a frame to the script. A frame holds the virtual key codes that are pressed during one scan, every other
+   * key is released.
+   *
+   * @param virtualKeyCodes the virtual key codes pressed during the frame
+   * @return this source
+   */
+  public synchronized ScriptedKeyStateSource frame(int... virtualKeyCodes) {
+    long[] frame = new long[4];
+    for (int virtualKeyCode : virtualKeyCodes) {
+      frame[index(virtualKeyCode)] |= bit(virtualKeyCode);
+    }
+    this.frames.add(frame);
+    return this;
+  }
+
+  public ScriptedKeyStateSource frames(@NonNull Collection<int[]> frames) {
+    frames.forEach(this::frame);
+    return this;
+  }
+
+  public ScriptedKeyStateSource press(int... virtualKeyCodes) {
+    for (int virtualKeyCode : virtualKeyCodes) {
+      int index = index(virtualKeyCode);
+      long bit = bit(virtualKeyCode);
+      long word;
+      do {
+        word = this.state.get(index);
+      } while (!this.state.compareAndSet(index, word, word | bit));
+    }
+    return this;
+  }
+
+  public ScriptedKeyStateSource release(int... virtualKeyCodes) {
+    for (int virtualKeyCode : virtualKeyCodes) {
+      int index = index(virtualKeyCode);
+      long bit = bit(virtualKeyCode);
+      long word;
+      do {
+        word = this.state.get(index);
+      } while (!this.state.compareAndSet(index, word, word & ~bit));
+    }
+    return this;
+  }
+
+  /**
+   * Reports the passed keys as pressed and released again since the previous query, without changing their state.
+   *
+   * @param virtualKeyCodes the virtual key codes which have been tapped
+   * @return this source
+   */
+  public ScriptedKeyStateSource tap(int... virtualKeyCodes) {
+    for (int virtualKeyCode : virtualKeyCodes) {
+      int index = index(virtualKeyCode);
+      long bit = bit(virtualKeyCode);
+      long word;
+      do {
+        word = this.taps.get(index);
+      } while (!this.taps.compareAndSet(index, word, word | bit));
+    }
+    return this;
+  }
+
+  /**
+   * Returns whether the script has been played back completely. Looping scripts never complete.
+   *
+   * @return true if there are no more frames to be played back
+   */
+  public synchronized boolean isCompleted() {
+    return !this.looping && this.position.get() >= this.frames.size();
+  }
+
+  @Override
+  public synchronized void tick() {
+    if (this.frames.isEmpty()) {
+      return;
+    }
+
+    int position = this.position.get();
+    if (position >= this.frames.size()) {
+      if (!this.looping) {
+        return;
+      }
+      position = 0;
+    }
+
+    long[] frame = this.frames.get(position);
+    for (int i = 0; i < frame.length; i++) {
+      this.state.set(i, frame[i]);
+    }
+    this.position.set(position + 1);
+  }
+
+  @Override
+  public KeyState getKeyState(int virtualKeyCode) {
+    return (this.state.get(index(virtualKeyCode)) & bit(virtualKeyCode)) != 0 ? KeyState.PRESSED : KeyState.RELEASED;
+  }
+
+  @Override
+  public int getRawKeyState(int virtualKeyCode) {
+    int index = index(virtualKeyCode);
+    long bit = bit(virtualKeyCode);
+    long word;
+    do {
+      word = this.taps.get(index);
+    } while ((word & bit) != 0 && !this.taps.compareAndSet(index, word, word & ~bit));
+
+    int rawKeyState = this.getKeyState(virtualKeyCode) == KeyState.PRESSED ? RAW_KEY_STATE_PRESSED_MASK : 0;
+    return (word & bit) != 0 ? rawKeyState | RAW_KEY_STATE_TAPPED_MASK : rawKeyState;
+  }
+
+  @Override
+  public void getKeyboardState(byte[] keyboardState) {
+    for (int i = 0; i < 4; i++) {
+      long word = this.state.get(i);
+      for (int j = 0; j < 64; j++) {
+        keyboardState[(i << 6) | j] = (word & (1L << j)) != 0 ? (byte) KEYBOARD_STATE_PRESSED_MASK : 0;
+      }
+    }
+  }
+
+  private static int index(int virtualKeyCode) {
+    return (virtualKeyCode & 0xFF) >>> 6;
+  }
+
+  private static long bit(int virtualKeyCode) {
+    return 1L << (virtualKeyCode & 0x3F);
+  }
+
+  public static ScriptedKeyStateSource create() {
+    return new ScriptedKeyStateSource(false);
+  }
+
+  public static ScriptedKeyStateSource looping() {
+    return new ScriptedKeyStateSource(true);
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.sources;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A {@link KeyStateSource} which generates pseudo-random transitions at a high rate. Every scan flips the state of
+ * {@code transitionsPerTick} keys picked from the configured virtual key codes.
+ * <p>The source is not thread-safe and must only be driven by a single polling thread.
+ */
+public class SyntheticKeyStateSource implements KeyStateSource {
+  private final long[] state = new long[4];
+  private final int[] virtualKeyCodes;
+  private final int transitionsPerTick;
+  private long seed;
+
+  /**
+   * The number of transitions generated since the creation of this source.
+   */
+  @Getter
+  private long transitions;
+
+  protected SyntheticKeyStateSource(int[] virtualKeyCodes, int transitionsPerTick, long seed) {
+    this.virtualKeyCodes = virtualKeyCodes;
+    this.transitionsPerTick = transitionsPerTick;
+    this.seed = seed != 0 ? seed : 0x9E3779B97F4A7C15L;
+  }
+
+  @Override
+  public void tick() {
+    for (int i = 0; i < this.transitionsPerTick; i++) {
+      int virtualKeyCode = this.virtualKeyCodes[(int) ((this.next() >>> 1) % this.virtualKeyCodes.length)];
+      this.state[virtualKeyCode >>> 6] ^= 1L << (virtualKeyCode & 0x3F);
+    }
+    this.transitions += this.transitionsPerTick;
+  }
+
+  @Override
+  public KeyState getKeyState(int virtualKeyCode) {
+    return (this.state[(virtualKeyCode & 0xFF) >>> 6] & (1L << (virtualKeyCode & 0x3F))) != 0
+      ? KeyState.PRESSED
+      : KeyState.RELEASED;
+  }
+
+  @Override
+  public void getKeyboardState(byte[] keyboardState) {
+    for (int i = 0; i < 4; i++) {
+      long word = this.state[i];
+      for (int j = 0; j < 64; j++) {
+        keyboardState[(i << 6) | j] = (word & (1L << j)) != 0 ? (byte) KEYBOARD_STATE_PRESSED_MASK : 0;
+      }
+    }
+  }
+
+  private long next() {
+    long x = this.seed;
+    x ^= x << 13;
+    x ^= x >>> 7;
+    x ^= x << 17;
+    return this.seed = x;
+  }
+
+  public static SyntheticKeyStateSource of(int transitionsPerTick, long seed, @NonNull int... virtualKeyCodes) {
+    if (virtualKeyCodes.length == 0) {
+      throw new IllegalArgumentException("at least one virtual key code is required");
+    }
+    int[] codes = new int[virtualKeyCodes.length];
+    for (int i = 0; i < codes.length; i++) {
+      codes[i] = virtualKeyCodes[i] & 0xFF;
+    }
+    return new SyntheticKeyStateSource(codes, transitionsPerTick, seed);
+  }
+
+  public static SyntheticKeyStateSource of(int transitionsPerTick, @NonNull int... virtualKeyCodes) {
+    return of(transitionsPerTick, System.nanoTime(), virtualKeyCodes);
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.sources;
+
+import com.sun.jna.Native;
+import com.sun.jna.platform.win32.Win32Exception;
+import dev.lukasl.jwinkey.enums.KeyState;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * The default {@link KeyStateSource} which queries the asynchronous key state using {@code GetAsyncKeyState}.
+ * <p>All functions are bound by JNA direct mapping, and {@code user32} is loaded on the first query.
+ * <p>Bulk reads use {@code GetKeyboardState}. As it returns the input state of the calling thread, it is preceded by
+ * a {@code GetKeyState} call which synchronizes the state of the polling thread with the global keyboard state.
+ * <p>The cursor position is read using {@code GetCursorPos}.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class User32KeyStateSource implements KeyStateSource {
+  public static final User32KeyStateSource INSTANCE = new User32KeyStateSource();
+
+  @Override
+  public KeyState getKeyState(int virtualKeyCode) {
+    return KeyState.fromKeyState(KeyboardLibrary.GetAsyncKeyState(virtualKeyCode));
+  }
+
+  /**
+   * Returns the raw result of {@code GetAsyncKeyState}. Its tapped bit is shared by all threads of the system which
+   * query the key, so a tap may be missed if another application polls the same key.
+   *
+   * @param virtualKeyCode the virtual key code to be queried
+   * @return the raw key state
+   */
+  @Override
+  public int getRawKeyState(int virtualKeyCode) {
+    return KeyboardLibrary.GetAsyncKeyState(virtualKeyCode) & 0xFFFF;
+  }
+
+  @Override
+  public void getKeyboardState(byte[] keyboardState) {
+    KeyboardLibrary.GetKeyState(0);
+    if (!KeyboardLibrary.GetKeyboardState(keyboardState)) {
+      throw new Win32Exception(Native.getLastError());
+    }
+  }
+
+  /**
+   * Returns 2, as every keyboard state query is preceded by the synchronizing {@code GetKeyState} call.
+   *
+   * @return the number of native calls per keyboard state query
+   */
+  @Override
+  public int getKeyboardStateCalls() {
+    return 2;
+  }
+
+  @Override
+  public boolean getCursorPosition(int[] position) {
+    return KeyboardLibrary.GetCursorPos(position);
+  }
+}
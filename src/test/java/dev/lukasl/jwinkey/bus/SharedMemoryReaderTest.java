@@ -0,0 +1,127 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.bus;
+
+import dev.lukasl.jwinkey.components.KeyStateUpdate;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import io.reactivex.rxjava3.observers.TestObserver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedMemoryReaderTest {
+  @TempDir
+  Path directory;
+
+  private final List<String> events = new ArrayList<>();
+  private final KeyEventHandler handler = new KeyEventHandler() {
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+      this.onEvent(virtualKeyCode, keyState, nanoTime, 0);
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+      String event = virtualKeyCode + " " + keyState + " " + nanoTime + " " + pressDurationNanos;
+      SharedMemoryReaderTest.this.events.add(event);
+    }
+  };
+
+  @Test
+  void readsPublishedEvents() throws IOException {
+    Path file = this.directory.resolve("bus");
+    SharedMemoryPublisher publisher = SharedMemoryPublisher.open(file, 4);
+    SharedMemoryReader.Cursor cursor = SharedMemoryReader.open(file).cursor();
+
+    publisher.onEvent(0x41, KeyState.PRESSED, 10);
+    publisher.onEvent(0x41, KeyState.RELEASED, 25, 15);
+    assertEquals(2, cursor.poll(this.handler));
+    assertEquals(0, cursor.poll(this.handler));
+    publisher.onEvent(0xFF, KeyState.PRESSED, 30);
+    assertEquals(1, cursor.poll(this.handler));
+
+    assertEquals(Arrays.asList("65 PRESSED 10 0", "65 RELEASED 25 15", "255 PRESSED 30 0"), this.events);
+    assertEquals(0, cursor.getLost());
+    assertEquals(3, publisher.getSequence());
+  }
+
+  @Test
+  void skipsOverwrittenEvents() throws IOException {
+    Path file = this.directory.resolve("bus");
+    SharedMemoryPublisher publisher = SharedMemoryPublisher.open(file, 4);
+    SharedMemoryReader.Cursor cursor = SharedMemoryReader.open(file).cursor();
+
+    for (int i = 0; i < 10; i++) {
+      publisher.onEvent(0x41, KeyState.PRESSED, i);
+    }
+    int count = cursor.poll(this.handler);
+
+    assertEquals(10, count + cursor.getLost());
+    assertTrue(count > 0 && count < 4);
+    assertEquals("65 PRESSED 9 0", this.events.get(this.events.size() - 1));
+  }
+
+  @Test
+  void skipsEventsWhoseStampDoesNotMatch() throws IOException {
+    Path file = this.directory.resolve("bus");
+    SharedMemoryPublisher publisher = SharedMemoryPublisher.open(file, 4);
+    SharedMemoryReader.Cursor cursor = SharedMemoryReader.open(file).cursor();
+
+    publisher.onEvent(0x41, KeyState.PRESSED, 1);
+    publisher.onEvent(0x42, KeyState.PRESSED, 2);
+    this.map(file).putLong(SharedMemoryLayout.slotOffset(0), SharedMemoryLayout.WRITING);
+
+    assertEquals(1, cursor.poll(this.handler));
+    assertEquals(1, cursor.getLost());
+    assertEquals(Arrays.asList("66 PRESSED 2 0"), this.events);
+  }
+
+  @Test
+  void signalsErrorsOfCorruptedFiles() throws IOException, InterruptedException {
+    Path file = this.directory.resolve("bus");
+    SharedMemoryPublisher publisher = SharedMemoryPublisher.open(file, 4);
+    TestObserver<KeyStateUpdate> observer = SharedMemoryReader.open(file).observe().test();
+
+    publisher.onEvent(0x41, KeyState.PRESSED, 1);
+    observer.awaitCount(1);
+    MappedByteBuffer buffer = this.map(file);
+    buffer.putInt(SharedMemoryLayout.slotOffset(1) + SharedMemoryLayout.EVENT_OFFSET, 0xFF41);
+    buffer.putLong(SharedMemoryLayout.slotOffset(1), SharedMemoryLayout.stamp(1));
+    buffer.putLong(SharedMemoryLayout.HEAD_OFFSET, 2);
+
+    assertTrue(observer.await(5, TimeUnit.SECONDS));
+    observer.assertError(ArrayIndexOutOfBoundsException.class);
+  }
+
+  private MappedByteBuffer map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyBitSetTest {
+  @Test
+  void addsAndRemovesKeysOfEveryWord() {
+    KeyBitSet keys = new KeyBitSet();
+    assertTrue(keys.add(0x00));
+    assertTrue(keys.add(0x41));
+    assertTrue(keys.add(0xFF));
+    assertFalse(keys.add(0x41));
+
+    assertTrue(keys.contains(0xFF));
+    assertEquals(3, keys.size());
+    assertTrue(keys.remove(0x41));
+    assertFalse(keys.contains(0x41));
+    assertEquals(KeySet.of(0x00, 0xFF), keys.snapshot());
+  }
+
+  @Test
+  void rejectsVirtualKeyCodesOutOfRange() {
+    KeyBitSet keys = new KeyBitSet();
+    assertThrows(IllegalArgumentException.class, () -> keys.add(0x12C));
+    assertThrows(IllegalArgumentException.class, () -> keys.add(-1));
+    assertThrows(IllegalArgumentException.class, () -> KeySet.of(0x100));
+    assertFalse(keys.contains(0x2C));
+  }
+}
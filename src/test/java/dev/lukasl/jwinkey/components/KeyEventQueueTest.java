@@ -0,0 +1,87 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyEventQueueTest {
+  @Test
+  void pollsEventsInOrderUntilEmpty() {
+    List<String> events = new ArrayList<>();
+    KeyEventQueue queue = new KeyEventQueue(2);
+    assertTrue(queue.offer(0x41, KeyState.PRESSED, 1));
+    assertTrue(queue.offer(0x41, KeyState.RELEASED, 2));
+    assertFalse(queue.offer(0x42, KeyState.PRESSED, 3));
+    assertEquals(2, queue.size());
+
+    assertTrue(queue.poll((virtualKeyCode, keyState, nanoTime) -> events.add(virtualKeyCode + " " + keyState)));
+    assertTrue(queue.offer(0xFF, KeyState.PRESSED, 4));
+    while (queue.poll((virtualKeyCode, keyState, nanoTime) -> events.add(virtualKeyCode + " " + keyState))) {
+    }
+
+    assertEquals(Arrays.asList("65 PRESSED", "65 RELEASED", "255 PRESSED"), events);
+    assertTrue(queue.isEmpty());
+  }
+
+  @Test
+  void keepsTheOrderOfEveryProducer() throws InterruptedException {
+    int producers = 4;
+    int eventsPerProducer = 100_000;
+    KeyEventQueue queue = new KeyEventQueue(64);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int producer = 0; producer < producers; producer++) {
+      int virtualKeyCode = producer;
+      Thread thread = new Thread(() -> {
+        for (long event = 0; event < eventsPerProducer; ) {
+          if (queue.offer(virtualKeyCode, KeyState.PRESSED, event)) {
+            event++;
+          } else {
+            Thread.yield();
+          }
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+
+    long[] expected = new long[producers];
+    long total = (long) producers * eventsPerProducer;
+    for (long received = 0; received < total; ) {
+      if (queue.poll((virtualKeyCode, keyState, nanoTime) -> assertEquals(expected[virtualKeyCode]++, nanoTime))) {
+        received++;
+      } else {
+        Thread.yield();
+      }
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(queue.isEmpty());
+    for (long count : expected) {
+      assertEquals(eventsPerProducer, count);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.components;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyEventRingBufferTest {
+  private final List<String> events = new ArrayList<>();
+  private final KeyEventHandler handler = new KeyEventHandler() {
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+      this.onEvent(virtualKeyCode, keyState, nanoTime, 0);
+    }
+
+    @Override
+    public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+      String event = virtualKeyCode + " " + keyState + " " + nanoTime + " " + pressDurationNanos;
+      KeyEventRingBufferTest.this.events.add(event);
+    }
+  };
+
+  @Test
+  void roundsCapacityUpToPowerOfTwo() {
+    assertEquals(1, new KeyEventRingBuffer(1).getCapacity());
+    assertEquals(8, new KeyEventRingBuffer(5).getCapacity());
+    assertEquals(8, new KeyEventRingBuffer(8).getCapacity());
+    assertThrows(IllegalArgumentException.class, () -> new KeyEventRingBuffer(0));
+  }
+
+  @Test
+  void pollsEventsInOrderUntilEmpty() {
+    KeyEventRingBuffer buffer = new KeyEventRingBuffer(2);
+    assertTrue(buffer.offer(0x41, KeyState.PRESSED, 1));
+    assertTrue(buffer.offer(0x41, KeyState.RELEASED, 2, 1));
+    assertFalse(buffer.offer(0x42, KeyState.PRESSED, 3));
+    assertEquals(2, buffer.size());
+
+    assertTrue(buffer.poll(this.handler));
+    assertTrue(buffer.offer(0xFF, KeyState.PRESSED, 4));
+    while (buffer.poll(this.handler)) {
+    }
+
+    assertEquals(Arrays.asList("65 PRESSED 1 0", "65 RELEASED 2 1", "255 PRESSED 4 0"), this.events);
+    assertTrue(buffer.isEmpty());
+  }
+
+  @Test
+  void dropsOldestEvents() {
+    KeyEventRingBuffer buffer = new KeyEventRingBuffer(2);
+    assertFalse(buffer.dropOldest());
+    buffer.offer(0x41, KeyState.PRESSED, 1);
+    buffer.offer(0x42, KeyState.PRESSED, 2);
+    assertTrue(buffer.dropOldest());
+    assertTrue(buffer.offer(0x43, KeyState.PRESSED, 3));
+
+    while (buffer.poll(this.handler)) {
+    }
+    assertEquals(Arrays.asList("66 PRESSED 2 0", "67 PRESSED 3 0"), this.events);
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.journal;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyEventJournalTest {
+  private static final int EVENTS = 1000;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void replaysRecordedEventsAcrossSegments() throws IOException {
+    List<String> recorded = new ArrayList<>();
+    try (KeyEventRecorder recorder = KeyEventRecorder.open(this.directory, 256)) {
+      long nanoTime = 1_000_000_000L;
+      for (int i = 0; i < EVENTS; i++) {
+        int virtualKeyCode = 0x41 + i / 2 % 26;
+        KeyState keyState = i % 2 == 0 ? KeyState.PRESSED : KeyState.RELEASED;
+        nanoTime += i % 7 == 0 ? 1L << 40 : i * 1_000L;
+        recorder.append(virtualKeyCode, keyState, nanoTime);
+        recorded.add(virtualKeyCode + " " + keyState + " " + nanoTime);
+      }
+      assertEquals(EVENTS, recorder.getCount());
+    }
+
+    KeyEventJournal journal = KeyEventJournal.open(this.directory);
+    assertTrue(journal.getSegments().size() > 1);
+
+    List<String> cursor = new ArrayList<>();
+    KeyEventJournal.Cursor events = journal.cursor();
+    while (events.next()) {
+      cursor.add(events.getVirtualKeyCode() + " " + events.getKeyState() + " " + events.getNanoTime());
+    }
+    assertEquals(recorded, cursor);
+
+    List<String> replayed = new ArrayList<>();
+    long[] pressDurations = new long[EVENTS];
+    assertEquals(EVENTS, journal.replay(new KeyEventHandler() {
+      @Override
+      public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+        throw new AssertionError();
+      }
+
+      @Override
+      public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+        pressDurations[replayed.size()] = pressDurationNanos;
+        replayed.add(virtualKeyCode + " " + keyState + " " + nanoTime);
+      }
+    }));
+    assertEquals(recorded, replayed);
+    assertEquals(0, pressDurations[0]);
+    assertEquals(1_000L, pressDurations[1]);
+  }
+
+  @Test
+  void rebasesSessionsAppendedToExistingJournals() throws IOException {
+    try (KeyEventRecorder recorder = new KeyEventRecorder(this.directory, 256, 0, 1_000_000)) {
+      recorder.append(0x41, KeyState.PRESSED, 5_000);
+      recorder.append(0x41, KeyState.RELEASED, 6_000);
+    }
+    try (KeyEventRecorder recorder = KeyEventRecorder.open(this.directory, 256)) {
+      recorder.append(0x41, KeyState.RELEASED, 100);
+      recorder.append(0x42, KeyState.PRESSED, 300);
+    }
+
+    KeyEventJournal journal = KeyEventJournal.open(this.directory);
+    assertEquals(2, journal.getSegments().size());
+    for (Path segment : journal.getSegments()) {
+      assertEquals(KeyEventJournal.HEADER_SIZE + 3 + 4, Files.size(segment));
+    }
+
+    List<String> events = new ArrayList<>();
+    KeyEventJournal.Cursor cursor = journal.cursor();
+    while (cursor.next()) {
+      events.add(cursor.getSession() + " " + cursor.getKeyState() + " " + cursor.getNanoTime());
+    }
+    assertEquals(Arrays.asList("0 PRESSED 5000", "0 RELEASED 6000", "1 RELEASED 6000", "1 PRESSED 6200"), events);
+
+    long[] pressDurations = new long[4];
+    int[] index = new int[1];
+    journal.replay(new KeyEventHandler() {
+      @Override
+      public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+      }
+
+      @Override
+      public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime, long pressDurationNanos) {
+        pressDurations[index[0]++] = pressDurationNanos;
+      }
+    });
+    assertArrayEquals(new long[]{0, 1_000, 0, 0}, pressDurations);
+  }
+}
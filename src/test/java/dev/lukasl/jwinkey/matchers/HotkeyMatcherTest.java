@@ -0,0 +1,139 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.matchers;
+
+import dev.lukasl.jwinkey.components.Hotkey;
+import dev.lukasl.jwinkey.components.HotkeyEvent;
+import dev.lukasl.jwinkey.components.KeyStateUpdate;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.enums.Modifier;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import dev.lukasl.jwinkey.observables.KeyStateObservable;
+import dev.lukasl.jwinkey.observables.KeyStatePoller;
+import dev.lukasl.jwinkey.sources.ScriptedKeyStateSource;
+import dev.lukasl.jwinkey.throwables.HotkeyException;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotkeyMatcherTest {
+  private static final int CONTROL = 0x11;
+  private static final int LEFT_CONTROL = 0xA2;
+  private static final int SHIFT = 0x10;
+  private static final int LEFT_SHIFT = 0xA0;
+
+  private final Hotkey controlA = Hotkey.of(1, 0x41, Arrays.asList(Modifier.CONTROL));
+  private final Hotkey controlB = Hotkey.of(2, 0x42, Arrays.asList(Modifier.CONTROL, Modifier.NO_REPEAT));
+  private final HotkeyMatcher matcher = HotkeyMatcher.compile(this.controlA, this.controlB);
+  private final List<Hotkey> activated = new ArrayList<>();
+  private final KeyEventHandler handler = this.matcher.handler((hotkey, nanoTime) -> this.activated.add(hotkey));
+
+  private void send(KeyState keyState, int... virtualKeyCodes) {
+    for (int virtualKeyCode : virtualKeyCodes) {
+      this.handler.onEvent(virtualKeyCode, keyState, 0);
+    }
+  }
+
+  @Test
+  void activatesHotkeyWhenTriggerIsPressedWithItsModifiers() {
+    this.send(KeyState.PRESSED, CONTROL, LEFT_CONTROL, 0x41);
+    assertEquals(Arrays.asList(this.controlA), this.activated);
+  }
+
+  @Test
+  void requiresExactlyTheModifiersOfTheHotkey() {
+    this.send(KeyState.PRESSED, 0x41);
+    this.send(KeyState.RELEASED, 0x41);
+    this.send(KeyState.PRESSED, CONTROL, SHIFT, LEFT_CONTROL, LEFT_SHIFT, 0x41);
+    assertTrue(this.activated.isEmpty());
+  }
+
+  @Test
+  void activatesHeldTriggerOnceWhenModifierIsPressed() {
+    this.send(KeyState.PRESSED, 0x41);
+    this.send(KeyState.PRESSED, CONTROL, LEFT_CONTROL);
+    assertEquals(Arrays.asList(this.controlA), this.activated);
+  }
+
+  @Test
+  void activatesChordSeenInOneScanOnce() {
+    ScriptedKeyStateSource source = ScriptedKeyStateSource.create();
+    KeyStatePoller poller = KeyStatePoller.builder().source(source).manual(true).build();
+    KeyStateObservable observable = KeyStateObservable.builder().poller(poller).build();
+    TestObserver<HotkeyEvent> observer = this.matcher.observe(observable).test();
+
+    source.press(CONTROL, LEFT_CONTROL, 0x41);
+    poller.scan();
+    poller.scan();
+
+    observer.assertValueCount(1);
+    assertEquals(this.controlA, observer.values().get(0).getHotkey());
+  }
+
+  @Test
+  void observesTheRequiredKeysOnlyWhileSubscribed() {
+    ScriptedKeyStateSource source = ScriptedKeyStateSource.create();
+    KeyStatePoller poller = KeyStatePoller.builder().source(source).manual(true).build();
+    KeyStateObservable observable = KeyStateObservable.builder().poller(poller).build();
+    Observable<HotkeyEvent> hotkeys = this.matcher.observe(observable);
+    assertEquals(0, observable.getSubscriberCount());
+
+    TestObserver<HotkeyEvent> observer = hotkeys.test();
+    source.press(CONTROL, LEFT_CONTROL, 0x41);
+    poller.scan();
+    observer.assertValueCount(1);
+
+    observer.dispose();
+    assertEquals(0, observable.getSubscriberCount());
+    assertTrue(observable.getReleased().isEmpty());
+
+    TestObserver<KeyStateUpdate> updates = observable.test();
+    source.release(CONTROL, LEFT_CONTROL, 0x41);
+    poller.scan();
+    updates.assertNoValues();
+  }
+
+  @Test
+  void activatesAgainOnRepetitionUnlessNoRepeatIsSet() {
+    this.send(KeyState.PRESSED, CONTROL, LEFT_CONTROL, 0x41, 0x42);
+    this.send(KeyState.REPEATED, 0x41, 0x42);
+    this.send(KeyState.REPEATED, 0x41, 0x42);
+
+    assertEquals(Arrays.asList(this.controlA, this.controlB, this.controlA, this.controlA), this.activated);
+  }
+
+  @Test
+  void ignoresRepetitionsWithDifferentModifiers() {
+    this.send(KeyState.PRESSED, CONTROL, LEFT_CONTROL, 0x41);
+    this.send(KeyState.RELEASED, CONTROL, LEFT_CONTROL);
+    this.send(KeyState.REPEATED, 0x41);
+
+    assertEquals(Arrays.asList(this.controlA), this.activated);
+  }
+
+  @Test
+  void rejectsConflictingHotkeys() {
+    Hotkey conflicting = Hotkey.of(3, 0x41, Arrays.asList(Modifier.CONTROL));
+    assertThrows(HotkeyException.class, () -> HotkeyMatcher.compile(this.controlA, conflicting));
+  }
+}
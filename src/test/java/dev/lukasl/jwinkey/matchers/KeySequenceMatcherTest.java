@@ -0,0 +1,131 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.matchers;
+
+import dev.lukasl.jwinkey.components.KeySequence;
+import dev.lukasl.jwinkey.components.KeySequenceEvent;
+import dev.lukasl.jwinkey.components.KeyStateUpdate;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import dev.lukasl.jwinkey.observables.KeyStateObservable;
+import dev.lukasl.jwinkey.observables.KeyStatePoller;
+import dev.lukasl.jwinkey.sources.ScriptedKeyStateSource;
+import io.reactivex.rxjava3.core.Observable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeySequenceMatcherTest {
+  private static final long MILLIS = 1_000_000L;
+
+  private final KeySequence abc = KeySequence.of(1, Arrays.asList(0x41, 0x42, 0x43), Duration.ofMillis(100));
+  private final KeySequence bc = KeySequence.of(2, Arrays.asList(0x42, 0x43), Duration.ofMillis(100));
+  private final KeySequence cd = KeySequence.of(3, Arrays.asList(0x43, 0x44), Duration.ofMillis(100));
+
+  private final List<Integer> matches = new ArrayList<>();
+
+  @Test
+  void matchesSequencesSurroundedByOtherKeys() {
+    KeyEventHandler handler = this.handler(this.abc);
+    press(handler, 0, 0x58, 0x41, 0x42);
+    handler.onEvent(0x42, KeyState.RELEASED, 3 * MILLIS);
+    handler.onEvent(0x42, KeyState.REPEATED, 3 * MILLIS);
+    press(handler, 4, 0x43, 0x58);
+
+    assertEquals(Arrays.asList(1), this.matches);
+  }
+
+  @Test
+  void restartsMatchingAfterTimeout() {
+    KeyEventHandler handler = this.handler(this.abc);
+    handler.onEvent(0x41, KeyState.PRESSED, 0);
+    handler.onEvent(0x42, KeyState.PRESSED, 50 * MILLIS);
+    handler.onEvent(0x43, KeyState.PRESSED, 200 * MILLIS);
+    assertTrue(this.matches.isEmpty());
+
+    press(handler, 300, 0x41, 0x42, 0x43);
+    assertEquals(Arrays.asList(1), this.matches);
+  }
+
+  @Test
+  void reportsOverlappingSequencesOfOnePress() {
+    KeyEventHandler handler = this.handler(this.abc, this.bc);
+    press(handler, 0, 0x41, 0x42, 0x43);
+
+    assertEquals(Arrays.asList(1, 2), this.matches);
+  }
+
+  @Test
+  void consumesPressesOfMatchedSequences() {
+    KeyEventHandler handler = this.handler(this.bc, this.cd);
+    press(handler, 0, 0x42, 0x43, 0x44);
+    assertEquals(Arrays.asList(2), this.matches);
+
+    press(handler, 10, 0x43, 0x44);
+    assertEquals(Arrays.asList(2, 3), this.matches);
+  }
+
+  @Test
+  void observesTheRequiredKeysOnlyWhileSubscribed() {
+    ScriptedKeyStateSource source = ScriptedKeyStateSource.create();
+    KeyStatePoller poller = KeyStatePoller.builder().source(source).manual(true).build();
+    KeyStateObservable observable = KeyStateObservable.builder().poller(poller).build();
+    Observable<KeySequenceEvent> sequences = KeySequenceMatcher.compile(this.bc).observe(observable);
+    assertEquals(0, observable.getSubscriberCount());
+
+    TestObserver<KeySequenceEvent> observer = sequences.test();
+    source.press(0x42);
+    poller.scan();
+    source.release(0x42).press(0x43);
+    poller.scan();
+    observer.assertValueCount(1);
+    assertEquals(this.bc, observer.values().get(0).getSequence());
+
+    observer.dispose();
+    assertEquals(0, observable.getSubscriberCount());
+    assertTrue(observable.getReleased().isEmpty());
+
+    TestObserver<KeyStateUpdate> updates = observable.test();
+    source.release(0x43);
+    poller.scan();
+    updates.assertNoValues();
+  }
+
+  @Test
+  void rejectsEmptySequences() {
+    assertThrows(IllegalArgumentException.class, () -> KeySequence.of(4, new ArrayList<>(), null));
+  }
+
+  private KeyEventHandler handler(KeySequence... sequences) {
+    return KeySequenceMatcher.compile(sequences).handler((sequence, nanoTime) -> this.matches.add(sequence.getId()));
+  }
+
+  /**
+   * Presses the passed keys one millisecond apart, starting at the passed millisecond.
+   */
+  private static void press(KeyEventHandler handler, long millis, int... virtualKeyCodes) {
+    for (int i = 0; i < virtualKeyCodes.length; i++) {
+      handler.onEvent(virtualKeyCodes[i], KeyState.PRESSED, (millis + i) * MILLIS);
+    }
+  }
+}
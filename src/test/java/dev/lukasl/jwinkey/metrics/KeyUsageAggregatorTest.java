@@ -0,0 +1,101 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.metrics;
+
+import dev.lukasl.jwinkey.enums.KeyState;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyUsageAggregatorTest {
+  private static final long SLOT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  @Test
+  void bucketsDwellTimesByPowersOfTwoMicroseconds() {
+    assertEquals(0, KeyUsageAggregator.dwellBucket(0));
+    assertEquals(0, KeyUsageAggregator.dwellBucket(1_999));
+    assertEquals(1, KeyUsageAggregator.dwellBucket(2_000));
+    assertEquals(1, KeyUsageAggregator.dwellBucket(3_999));
+    assertEquals(2, KeyUsageAggregator.dwellBucket(4_000));
+    assertEquals(19, KeyUsageAggregator.dwellBucket(TimeUnit.SECONDS.toNanos(1)));
+    assertEquals(KeyUsageAggregator.DWELL_BUCKETS - 1, KeyUsageAggregator.dwellBucket(Long.MAX_VALUE));
+  }
+
+  @Test
+  void rotatesSlotsOutOfTheWindow() {
+    KeyUsageAggregator aggregator = new KeyUsageAggregator(SLOT_NANOS, 4);
+    long startNanos = aggregator.snapshot().getStartNanos();
+    this.press(aggregator, startNanos, 50);
+    this.press(aggregator, startNanos, 150);
+    this.press(aggregator, startNanos, 150);
+    this.press(aggregator, startNanos, 350);
+
+    KeyUsageSnapshot full = aggregator.snapshot(startNanos + TimeUnit.MILLISECONDS.toNanos(399));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(399), full.getWindowNanos());
+    assertEquals(4 / 0.399, full.getPressRate(0x41), 1e-9);
+
+    // the first slot is reused for the fifth one, which only covers 50ms so far
+    this.press(aggregator, startNanos, 450);
+    KeyUsageSnapshot rotated = aggregator.snapshot(startNanos + TimeUnit.MILLISECONDS.toNanos(450));
+    assertEquals(5, rotated.getPressCount(0x41));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(350), rotated.getWindowNanos());
+    assertEquals(4 / 0.35, rotated.getPressRate(0x41), 1e-9);
+    assertEquals(rotated.getPressRate(0x41), rotated.getPressRate(), 1e-9);
+
+    KeyUsageSnapshot idle = aggregator.snapshot(startNanos + TimeUnit.SECONDS.toNanos(1));
+    assertEquals(5, idle.getPressCount(0x41));
+    assertEquals(0, idle.getPressRate(0x41));
+  }
+
+  @Test
+  void returnsTheUpperBoundOfTheBucketOfAPercentile() {
+    KeyUsageAggregator aggregator = KeyUsageAggregator.create();
+    this.release(aggregator, TimeUnit.MILLISECONDS.toNanos(1));
+    this.release(aggregator, TimeUnit.MILLISECONDS.toNanos(1));
+    this.release(aggregator, TimeUnit.MILLISECONDS.toNanos(1));
+    this.release(aggregator, TimeUnit.MILLISECONDS.toNanos(10));
+
+    KeyUsageSnapshot snapshot = aggregator.snapshot();
+    assertEquals(4, snapshot.getReleaseCount(0x41));
+    assertEquals(TimeUnit.MICROSECONDS.toNanos(1_024), snapshot.getDwellNanosAtPercentile(0x41, 0));
+    assertEquals(TimeUnit.MICROSECONDS.toNanos(1_024), snapshot.getDwellNanosAtPercentile(0x41, 75));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(10), snapshot.getDwellNanosAtPercentile(0x41, 76));
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(10), snapshot.getDwellNanosAtPercentile(0x41, 100));
+    assertEquals(0, snapshot.getDwellNanosAtPercentile(0x42, 50));
+  }
+
+  @Test
+  void returnsTheMaximumForDwellTimesBeyondTheLastBucket() {
+    KeyUsageAggregator aggregator = KeyUsageAggregator.create();
+    this.release(aggregator, TimeUnit.MILLISECONDS.toNanos(1));
+    this.release(aggregator, TimeUnit.HOURS.toNanos(1));
+
+    KeyUsageSnapshot snapshot = aggregator.snapshot();
+    assertEquals(1, snapshot.getDwellHistogram(0x41)[KeyUsageAggregator.DWELL_BUCKETS - 1]);
+    assertEquals(TimeUnit.HOURS.toNanos(1), snapshot.getDwellNanosAtPercentile(0x41, 99));
+  }
+
+  private void press(KeyUsageAggregator aggregator, long startNanos, long offsetMillis) {
+    aggregator.onEvent(0x41, KeyState.PRESSED, startNanos + TimeUnit.MILLISECONDS.toNanos(offsetMillis));
+  }
+
+  private void release(KeyUsageAggregator aggregator, long pressDurationNanos) {
+    aggregator.onEvent(0x41, KeyState.RELEASED, System.nanoTime(), pressDurationNanos);
+  }
+}
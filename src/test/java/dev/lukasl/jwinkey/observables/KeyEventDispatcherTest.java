@@ -0,0 +1,62 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.KeyStateUpdate;
+import dev.lukasl.jwinkey.enums.KeyState;
+import io.reactivex.rxjava3.observers.TestObserver;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyEventDispatcherTest {
+  @Test
+  void emitsEventsWithTheirOfferedTime() throws InterruptedException {
+    KeyEventDispatcher dispatcher = KeyEventDispatcher.builder().build();
+    TestObserver<KeyStateUpdate> observer = dispatcher.observable(0x41, 0x42).test();
+
+    assertTrue(dispatcher.offer(0x41, KeyState.PRESSED, 100));
+    assertTrue(dispatcher.offer(0x42, KeyState.PRESSED, 100));
+    assertTrue(dispatcher.offer(0x41, KeyState.RELEASED, 250));
+    assertTrue(dispatcher.offer(0x42, KeyState.RELEASED, 300));
+    observer.awaitCount(4);
+
+    long[] nanoTimes = observer.values().stream().mapToLong(KeyStateUpdate::getNanoTime).toArray();
+    long[] pressDurations = observer.values().stream().mapToLong(KeyStateUpdate::getPressDurationNanos).toArray();
+    assertArrayEquals(new long[]{100, 100, 250, 300}, nanoTimes);
+    assertArrayEquals(new long[]{0, 0, 150, 200}, pressDurations);
+
+    dispatcher.close();
+    assertTrue(observer.await(5, TimeUnit.SECONDS));
+    observer.assertError(CancellationException.class);
+  }
+
+  @Test
+  void rejectsEventsWhichCannotBeDispatched() {
+    KeyEventDispatcher dispatcher = KeyEventDispatcher.builder().build();
+    assertThrows(IllegalArgumentException.class, () -> dispatcher.offer(0x141, KeyState.PRESSED, 100));
+    assertThrows(IllegalArgumentException.class, () -> dispatcher.offer(-1, KeyState.RELEASED, 100));
+    assertThrows(IllegalArgumentException.class, () -> dispatcher.offer(0x41, KeyState.HELD, 100));
+    assertThrows(IllegalArgumentException.class, () -> dispatcher.offer(0x41, KeyState.DOUBLE_TAPPED, 100));
+    assertEquals(0, dispatcher.getPending());
+    assertEquals(0, dispatcher.getDropped());
+    dispatcher.close();
+  }
+}
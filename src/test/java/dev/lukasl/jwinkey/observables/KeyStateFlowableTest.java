@@ -0,0 +1,75 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.KeyStateUpdate;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.enums.OverflowStrategy;
+import dev.lukasl.jwinkey.sources.ScriptedKeyStateSource;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyStateFlowableTest {
+  private final ScriptedKeyStateSource source = ScriptedKeyStateSource.create();
+  private final KeyStatePoller poller = KeyStatePoller.builder().source(this.source).manual(true).build();
+  private final KeyStateObservable observable = KeyStateObservable.builder().poller(this.poller).build().register(0x41);
+
+  private void toggle(boolean pressed) {
+    if (pressed) {
+      this.source.press(0x41);
+    } else {
+      this.source.release(0x41);
+    }
+    this.poller.scan();
+  }
+
+  @Test
+  void dropsNewestEventsOfFullBuffers() {
+    KeyStateFlowable flowable = this.observable.buffered(1, OverflowStrategy.DROP_NEWEST, Schedulers.trampoline());
+    TestSubscriber<KeyStateUpdate> subscriber = flowable.test(0);
+
+    this.toggle(true);
+    this.toggle(false);
+    subscriber.request(Long.MAX_VALUE);
+
+    subscriber.assertValueCount(1);
+    assertEquals(KeyState.PRESSED, subscriber.values().get(0).getKeyState());
+    assertEquals(1, flowable.getDropped());
+  }
+
+  @Test
+  void coalescesEventsTogetherWithTheirPressDuration() throws InterruptedException {
+    KeyStateFlowable flowable = this.observable.buffered(1, OverflowStrategy.COALESCE, Schedulers.trampoline());
+    TestSubscriber<KeyStateUpdate> subscriber = flowable.test(0);
+
+    this.toggle(true);
+    Thread.sleep(5);
+    this.toggle(false);
+    this.toggle(true);
+    this.toggle(false);
+    subscriber.request(Long.MAX_VALUE);
+
+    subscriber.assertValueCount(2);
+    KeyStateUpdate coalesced = subscriber.values().get(1);
+    assertEquals(KeyState.RELEASED, coalesced.getKeyState());
+    assertTrue(coalesced.getPressDurationNanos() < 5_000_000);
+    assertEquals(2, flowable.getDropped());
+  }
+}
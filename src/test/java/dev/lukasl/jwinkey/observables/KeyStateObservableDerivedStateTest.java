@@ -0,0 +1,157 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.DerivedStatePolicy;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import dev.lukasl.jwinkey.sources.ScriptedKeyStateSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyStateObservableDerivedStateTest {
+  private static final DerivedStatePolicy POLICY = DerivedStatePolicy.builder()
+    .holdDelay(Duration.ofMillis(100))
+    .longPressDelay(Duration.ofMillis(300))
+    .repeatDelay(Duration.ofMillis(200))
+    .repeatInterval(Duration.ofMillis(50))
+    .doubleTapWindow(Duration.ofMillis(150))
+    .build();
+
+  private final List<String> events = new ArrayList<>();
+  private long millis;
+
+  /**
+   * A scripted source whose scans happen at the time set by {@link #scan(long)}.
+   */
+  private final ScriptedKeyStateSource source = new ScriptedKeyStateSource(false) {
+    @Override
+    public long getNanoTime(long scanNanoTime) {
+      return TimeUnit.MILLISECONDS.toNanos(KeyStateObservableDerivedStateTest.this.millis);
+    }
+  };
+  private final KeyStatePoller poller = KeyStatePoller.builder().source(this.source).manual(true).build();
+
+  @BeforeEach
+  void subscribe() {
+    KeyStateObservable.builder()
+      .poller(this.poller)
+      .derivedStatePolicy(POLICY)
+      .virtualKeyCodes(Arrays.asList(0x41))
+      .build()
+      .handle(new KeyEventHandler() {
+        @Override
+        public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+          String event = keyState + "@" + TimeUnit.NANOSECONDS.toMillis(nanoTime);
+          KeyStateObservableDerivedStateTest.this.events.add(event);
+        }
+      });
+  }
+
+  @Test
+  void repeatsAtTheIntervalWithoutCatchingUp() {
+    this.source.press(0x41);
+    for (long millis = 0; millis <= 400; millis += 50) {
+      this.scan(millis);
+    }
+    this.scan(520);
+    this.scan(560);
+    this.scan(570);
+
+    assertEquals(
+      Arrays.asList("REPEATED@200", "REPEATED@250", "REPEATED@300", "REPEATED@350", "REPEATED@400", "REPEATED@520",
+        "REPEATED@570"),
+      this.events(KeyState.REPEATED)
+    );
+  }
+
+  @Test
+  void reportsHeldAndLongPressedOnce() {
+    this.source.press(0x41);
+    for (long millis = 0; millis <= 1000; millis += 50) {
+      this.scan(millis);
+    }
+
+    assertEquals(Arrays.asList("HELD@100"), this.events(KeyState.HELD));
+    assertEquals(Arrays.asList("LONG_PRESSED@300"), this.events(KeyState.LONG_PRESSED));
+  }
+
+  @Test
+  void reportsDoubleTapsWithinTheWindow() {
+    this.press(0, 50);
+    this.press(150, 200);
+    this.press(250, 300);
+    this.press(1000, 1050);
+    this.press(1151, 1200);
+    assertEquals(Arrays.asList("DOUBLE_TAPPED@150"), this.events(KeyState.DOUBLE_TAPPED));
+
+    this.events.clear();
+    this.scan(2000);
+    this.source.tap(0x41);
+    this.scan(2050);
+    this.source.tap(0x41);
+    this.scan(2100);
+    assertEquals(
+      Arrays.asList("PRESSED@2050", "RELEASED@2050", "PRESSED@2100", "DOUBLE_TAPPED@2100", "RELEASED@2100"),
+      this.events
+    );
+  }
+
+  @Test
+  void clearsDerivedStatesOnRelease() {
+    this.source.press(0x41);
+    for (long millis = 0; millis <= 400; millis += 100) {
+      this.scan(millis);
+    }
+    this.source.release(0x41);
+    for (long millis = 500; millis <= 1000; millis += 100) {
+      this.scan(millis);
+    }
+    assertEquals("RELEASED@500", this.events.get(this.events.size() - 1));
+
+    this.events.clear();
+    this.source.press(0x41);
+    this.scan(2000);
+    this.scan(2100);
+    assertEquals(Arrays.asList("PRESSED@2000", "HELD@2100"), this.events);
+  }
+
+  private void scan(long millis) {
+    this.millis = millis;
+    this.poller.scan();
+  }
+
+  private void press(long pressedAt, long releasedAt) {
+    this.source.press(0x41);
+    this.scan(pressedAt);
+    this.source.release(0x41);
+    this.scan(releasedAt);
+  }
+
+  private List<String> events(KeyState keyState) {
+    return this.events.stream().filter((event) -> event.startsWith(keyState + "@")).collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.KeySet;
+import dev.lukasl.jwinkey.components.KeyStateSnapshot;
+import dev.lukasl.jwinkey.components.KeyStateUpdate;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.handlers.KeyEventHandler;
+import dev.lukasl.jwinkey.sources.ScriptedKeyStateSource;
+import io.reactivex.rxjava3.observers.TestObserver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyStateObservableTest {
+  private final ScriptedKeyStateSource source = ScriptedKeyStateSource.create();
+  private final KeyStatePoller poller = KeyStatePoller.builder().source(this.source).manual(true).build();
+
+  private KeyStateObservable observable(int... virtualKeyCodes) {
+    return KeyStateObservable.builder().poller(this.poller).build().register(virtualKeyCodes);
+  }
+
+  @Test
+  void emitsTransitionsOfRegisteredKeys() {
+    TestObserver<KeyStateUpdate> observer = this.observable(0x41).test();
+
+    this.source.press(0x41, 0x42);
+    this.poller.scan();
+    this.source.release(0x41);
+    this.poller.scan();
+
+    observer.assertValueCount(2);
+    assertEquals(KeyState.PRESSED, observer.values().get(0).getKeyState());
+    assertEquals(KeyState.RELEASED, observer.values().get(1).getKeyState());
+    assertEquals(0x41, observer.values().get(1).getVirtualKeyCode());
+  }
+
+  @Test
+  void publishesSnapshotWhenPressedViewIsRemoved() {
+    KeyStateObservable observable = this.observable(0x41);
+    observable.test();
+    TestObserver<KeyStateUpdate> view = observable.forKey(0x42).test();
+
+    this.source.press(0x41, 0x42);
+    this.poller.scan();
+    KeyStateSnapshot snapshot = observable.getSnapshot();
+    assertTrue(snapshot.isPressed(0x42));
+
+    view.dispose();
+    assertEquals(snapshot.getSequence() + 1, observable.getSnapshot().getSequence());
+    assertFalse(observable.getSnapshot().isPressed(0x42));
+    assertTrue(observable.getSnapshot().isPressed(0x41));
+  }
+
+  @Test
+  void publishesConsistentSnapshotsWhileViewsAreDisposedConcurrently() throws InterruptedException {
+    KeyStateObservable observable = this.observable(0x41);
+    observable.test();
+    this.source.press(0x42);
+
+    AtomicBoolean done = new AtomicBoolean();
+    List<Long> sequences = Collections.synchronizedList(new ArrayList<>());
+    Thread disposer = new Thread(() -> {
+      while (!done.get()) {
+        TestObserver<KeyStateUpdate> view = observable.forKey(0x42).test();
+        view.dispose();
+        KeyStateSnapshot snapshot = observable.getSnapshot();
+        sequences.add(snapshot.getSequence());
+      }
+    });
+    disposer.start();
+
+    for (int scan = 0; scan < 100_000; scan++) {
+      if (scan % 2 == 0) {
+        this.source.press(0x41);
+      } else {
+        this.source.release(0x41);
+      }
+      this.poller.scan();
+      assertEquals(scan % 2 == 0, observable.getSnapshot().isPressed(0x41));
+    }
+    done.set(true);
+    disposer.join();
+    this.source.release(0x41);
+    this.poller.scan();
+
+    KeyStateSnapshot snapshot = observable.getSnapshot();
+    assertEquals(KeySet.EMPTY, snapshot.getPressed());
+    assertEquals(observable.getPressedKeys(), snapshot.getPressed());
+    for (int i = 1; i < sequences.size(); i++) {
+      assertTrue(sequences.get(i) >= sequences.get(i - 1));
+    }
+  }
+
+  @Test
+  void isolatesFailingSubscribers() {
+    KeyStateObservable failing = this.observable(0x41);
+    KeyStateObservable other = this.observable(0x41);
+    IllegalStateException failure = new IllegalStateException("subscriber failure");
+    List<Throwable> errors = new ArrayList<>();
+
+    failing.handle(new KeyEventHandler() {
+      @Override
+      public void onEvent(int virtualKeyCode, KeyState keyState, long nanoTime) {
+        throw failure;
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        errors.add(throwable);
+      }
+    });
+    TestObserver<KeyStateUpdate> sibling = failing.test();
+    TestObserver<KeyStateUpdate> observer = other.test();
+
+    this.source.press(0x41);
+    this.poller.scan();
+    this.source.release(0x41);
+    this.poller.scan();
+
+    assertEquals(1, errors.size());
+    assertSame(failure, errors.get(0));
+    assertEquals(1, failing.getSubscriberCount());
+    sibling.assertNoErrors().assertValueCount(2);
+    observer.assertNoErrors().assertValueCount(2);
+  }
+
+  @Test
+  void passesFailingObserversTheirOwnError() {
+    KeyStateObservable observable = this.observable(0x41);
+    TestObserver<KeyStateUpdate> healthy = observable.test();
+    TestObserver<KeyStateUpdate> failing = new TestObserver<KeyStateUpdate>() {
+      @Override
+      public void onNext(KeyStateUpdate update) {
+        throw new IllegalStateException("observer failure");
+      }
+    };
+    observable.subscribe(failing);
+
+    this.source.press(0x41);
+    this.poller.scan();
+
+    failing.assertError(IllegalStateException.class);
+    healthy.assertNoErrors().assertValueCount(1);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.KeyStateUpdate;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.enums.PollingMode;
+import dev.lukasl.jwinkey.handlers.MetricsListener;
+import dev.lukasl.jwinkey.sources.KeyStateSource;
+import dev.lukasl.jwinkey.sources.ScriptedKeyStateSource;
+import io.reactivex.rxjava3.observers.TestObserver;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyStatePollerTest {
+  private final List<Integer> nativeCalls = new ArrayList<>();
+  private final MetricsListener listener = new MetricsListener() {
+    @Override
+    public void onTick(long durationNanos, long jitterNanos, int nativeCalls) {
+      KeyStatePollerTest.this.nativeCalls.add(nativeCalls);
+    }
+  };
+
+  @Test
+  void countsTheNativeCallsReportedBySources() {
+    KeyStateSource source = new KeyStateSource() {
+      @Override
+      public KeyState getKeyState(int virtualKeyCode) {
+        return KeyState.RELEASED;
+      }
+
+      @Override
+      public int getKeyboardStateCalls() {
+        return 2;
+      }
+    };
+    KeyStatePoller snapshot = this.poller(source, PollingMode.SNAPSHOT);
+    KeyStatePoller perKey = this.poller(source, PollingMode.PER_KEY);
+    KeyStateObservable.builder().poller(snapshot).build().register(0x41, 0x42, 0x43).test();
+    KeyStateObservable.builder().poller(perKey).build().register(0x41, 0x42, 0x43).test();
+
+    snapshot.scan();
+    perKey.scan();
+
+    assertEquals(Arrays.asList(2, 3), this.nativeCalls);
+  }
+
+  @Test
+  void reportsTapsOfKeysReadByThePreviousScan() {
+    ScriptedKeyStateSource source = ScriptedKeyStateSource.create();
+    KeyStatePoller poller = this.poller(source, PollingMode.PER_KEY);
+    KeyStateObservable observable = KeyStateObservable.builder().poller(poller).build().register(0x41);
+
+    source.tap(0x41);
+    TestObserver<KeyStateUpdate> observer = observable.test();
+    poller.scan();
+    observer.assertNoValues();
+
+    source.tap(0x41);
+    poller.scan();
+    observer.assertValueCount(2);
+    assertEquals(KeyState.PRESSED, observer.values().get(0).getKeyState());
+    assertEquals(KeyState.RELEASED, observer.values().get(1).getKeyState());
+  }
+
+  @Test
+  void reportsTapsOfKeysHeldAtThePreviousScan() {
+    ScriptedKeyStateSource source = ScriptedKeyStateSource.create();
+    KeyStatePoller poller = this.poller(source, PollingMode.PER_KEY);
+    TestObserver<KeyStateUpdate> observer = KeyStateObservable.builder().poller(poller).build().register(0x41).test();
+
+    poller.scan();
+    source.press(0x41);
+    poller.scan();
+    source.release(0x41).tap(0x41);
+    poller.scan();
+
+    observer.assertValueCount(4);
+    assertEquals(KeyState.PRESSED, observer.values().get(0).getKeyState());
+    assertEquals(KeyState.RELEASED, observer.values().get(1).getKeyState());
+    assertEquals(KeyState.PRESSED, observer.values().get(2).getKeyState());
+    assertEquals(KeyState.RELEASED, observer.values().get(3).getKeyState());
+  }
+
+  @Test
+  void ignoresTapsBeforeRestartsAndRegistrations() {
+    ScriptedKeyStateSource source = ScriptedKeyStateSource.create();
+    KeyStatePoller poller = this.poller(source, PollingMode.PER_KEY);
+    KeyStateObservable first = KeyStateObservable.builder().poller(poller).build().register(0x41);
+    KeyStateObservable second = KeyStateObservable.builder().poller(poller).build().register(0x42);
+
+    first.test().dispose();
+    poller.scan();
+    TestObserver<KeyStateUpdate> observer = first.test();
+    poller.scan();
+    observer.dispose();
+
+    source.tap(0x41, 0x42);
+    observer = first.test();
+    TestObserver<KeyStateUpdate> other = second.test();
+    poller.scan();
+    observer.assertNoValues();
+    other.assertNoValues();
+
+    source.tap(0x41, 0x42);
+    poller.scan();
+    observer.assertValueCount(2);
+    other.assertValueCount(2);
+  }
+
+  private KeyStatePoller poller(KeyStateSource source, PollingMode pollingMode) {
+    return KeyStatePoller.builder()
+      .source(source)
+      .pollingMode(pollingMode)
+      .manual(true)
+      .metricsListener(this.listener)
+      .build();
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ *    Copyright 2021 lukasl-dev
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package dev.lukasl.jwinkey.observables;
+
+import dev.lukasl.jwinkey.components.MouseMotion;
+import dev.lukasl.jwinkey.components.MouseMotionPolicy;
+import dev.lukasl.jwinkey.enums.KeyState;
+import dev.lukasl.jwinkey.sources.KeyStateSource;
+import io.reactivex.rxjava3.disposables.Disposable;
+import io.reactivex.rxjava3.observers.TestObserver;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MouseMotionObservableTest {
+  private static final MouseMotionPolicy POLICY = MouseMotionPolicy.builder()
+    .minInterval(Duration.ofMillis(50))
+    .minDistance(5)
+    .build();
+
+  private final int[] cursor = new int[2];
+  private long millis;
+
+  private final KeyStateSource source = new KeyStateSource() {
+    @Override
+    public KeyState getKeyState(int virtualKeyCode) {
+      return KeyState.RELEASED;
+    }
+
+    @Override
+    public boolean getCursorPosition(int[] position) {
+      System.arraycopy(MouseMotionObservableTest.this.cursor, 0, position, 0, 2);
+      return true;
+    }
+
+    @Override
+    public long getNanoTime(long scanNanoTime) {
+      return TimeUnit.MILLISECONDS.toNanos(MouseMotionObservableTest.this.millis);
+    }
+  };
+
+  private final KeyStatePoller poller = KeyStatePoller.builder().source(this.source).manual(true).build();
+
+  @Test
+  void throttlesMovementsByDistanceAndInterval() {
+    MouseMotionObservable observable = MouseMotionObservable.of(this.poller, POLICY);
+    TestObserver<MouseMotion> observer = observable.test();
+
+    this.scan(100, 100, 0);
+    this.scan(102, 100, 100);
+    this.scan(106, 100, 110);
+    this.scan(120, 103, 130);
+    this.scan(121, 104, 160);
+    this.scan(121, 104, 300);
+
+    List<String> motions = observer.values().stream().map(this::format).collect(Collectors.toList());
+    assertEquals(Arrays.asList("106,100 6,0@110", "121,104 15,4@160"), motions);
+  }
+
+  @Test
+  void recordsTheFirstPositionAfterResubscribing() {
+    MouseMotionObservable observable = MouseMotionObservable.of(this.poller);
+    List<String> motions = new ArrayList<>();
+    Disposable disposable = observable.handle((x, y, deltaX, deltaY, nanoTime) -> motions.add(x + "," + y));
+
+    this.scan(10, 10, 0);
+    this.scan(20, 10, 10);
+    disposable.dispose();
+    this.scan(30, 10, 20);
+
+    observable.handle((x, y, deltaX, deltaY, nanoTime) -> motions.add(x + "," + y + " " + deltaX + "," + deltaY));
+    this.scan(500, 500, 30);
+    this.scan(500, 500, 40);
+    assertEquals(Collections.singletonList("20,10"), motions);
+
+    this.scan(501, 498, 50);
+    assertEquals(Arrays.asList("20,10", "501,498 1,-2"), motions);
+  }
+
+  private void scan(int x, int y, long millis) {
+    this.cursor[0] = x;
+    this.cursor[1] = y;
+    this.millis = millis;
+    this.poller.scan();
+  }
+
+  private String format(MouseMotion motion) {
+    long millis = TimeUnit.NANOSECONDS.toMillis(motion.getNanoTime());
+    return motion.getX() + "," + motion.getY() + " " + motion.getDeltaX() + "," + motion.getDeltaY() + "@" + millis;
+  }
+}